@@ -6,6 +6,7 @@ import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.client.CircularRedirectException;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
 import org.apache.http.conn.ssl.AllowAllHostnameVerifier;
 import org.apache.http.conn.ssl.SSLContexts;
@@ -21,6 +22,7 @@ import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
 import org.mockserver.client.serialization.Base64Converter;
 import org.mockserver.client.serialization.ObjectMapperFactory;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.mappers.ApacheHttpClientToMockServerResponseMapper;
 import org.mockserver.model.*;
 import org.mockserver.socket.SSLFactory;
@@ -56,6 +58,18 @@ public class ApacheHttpClient {
     public ApacheHttpClient(boolean isSecure) {
         try {
             HttpClientBuilder httpClientBuilder = HttpClients.custom().disableCookieManagement();
+
+            // keep-alive connections are pooled per upstream server, a request waits at most the max timeout for one of
+            // the connections to its upstream server to be free
+            httpClientBuilder
+                    .setMaxConnPerRoute(SystemProperties.maxUpstreamConnectionsPerHost())
+                    .setMaxConnTotal(Integer.MAX_VALUE)
+                    .setDefaultRequestConfig(
+                            RequestConfig
+                                    .custom()
+                                    .setConnectionRequestTimeout((int) Math.min(Integer.MAX_VALUE, SystemProperties.maxTimeout()))
+                                    .build()
+                    );
             if (isSecure) {
                 httpClientBuilder
                         .setSslcontext(
@@ -96,6 +110,17 @@ public class ApacheHttpClient {
         }
     }
 
+    /**
+     * Closes the pooled upstream connections, no more requests can be sent once closed
+     */
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException ioe) {
+            logger.debug("Exception while closing http client", ioe);
+        }
+    }
+
     public String sendPUTRequest(String baseUri, String path, String body) {
         try {
             if (baseUri.endsWith("/") && path.startsWith("/")) {
@@ -112,6 +137,39 @@ public class ApacheHttpClient {
     }
 
     public HttpResponse sendRequest(HttpRequest httpRequest, boolean binaryBody) {
+        try {
+            CloseableHttpResponse clientResponse = execute(httpRequest, binaryBody);
+            if (clientResponse == null) {
+                return new HttpResponse();
+            }
+            return apacheHttpClientToMockServerResponseMapper.mapApacheHttpClientResponseToMockServerResponse(clientResponse, binaryBody);
+        } catch (IOException ioe) {
+            throw new RuntimeException("IOException while sending request for url [" + httpRequest.getURL() + "]", ioe);
+        }
+    }
+
+    /**
+     * Sends the request and returns as soon as the status code and headers of the response have been received, the
+     * body is read from the upstream connection as it is read from the returned response which must be closed
+     *
+     * @param captureSize the number of bytes of the body to capture for logging and verification
+     */
+    public StreamingHttpResponse sendStreamingRequest(HttpRequest httpRequest, int captureSize) {
+        try {
+            CloseableHttpResponse clientResponse = execute(httpRequest, false);
+            if (clientResponse == null) {
+                return new StreamingHttpResponse(new HttpResponse(), null, captureSize);
+            }
+            return new StreamingHttpResponse(apacheHttpClientToMockServerResponseMapper.mapApacheHttpClientResponseHeadToMockServerResponse(clientResponse), clientResponse, captureSize);
+        } catch (IOException ioe) {
+            throw new RuntimeException("IOException while sending request for url [" + httpRequest.getURL() + "]", ioe);
+        }
+    }
+
+    /**
+     * @return the response or null if the request was redirected in a circle
+     */
+    private CloseableHttpResponse execute(HttpRequest httpRequest, boolean binaryBody) {
         try {
             // url & method
             URI url = buildUrl(httpRequest);
@@ -169,7 +227,7 @@ public class ApacheHttpClient {
                 logger.trace("Proxy sending request:" + System.getProperty("line.separator") + ObjectMapperFactory.createObjectMapper().writeValueAsString(httpRequest));
             }
 
-            return apacheHttpClientToMockServerResponseMapper.mapApacheHttpClientResponseToMockServerResponse(this.httpClient.execute(proxiedRequest), binaryBody);
+            return this.httpClient.execute(proxiedRequest);
         } catch (MalformedURLException murle) {
             throw new RuntimeException("MalformedURLException for url [" + httpRequest.getURL() + "]", murle);
         } catch (URISyntaxException use) {
@@ -177,7 +235,7 @@ public class ApacheHttpClient {
         } catch (IOException ioe) {
             if (ioe.getCause() instanceof CircularRedirectException) {
                 logger.debug("Circular redirect aborting request", ioe);
-                return new HttpResponse();
+                return null;
             } else {
                 throw new RuntimeException("IOException while sending request for url [" + httpRequest.getURL() + "]", ioe);
             }
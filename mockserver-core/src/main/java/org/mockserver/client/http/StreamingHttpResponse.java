@@ -0,0 +1,184 @@
+package org.mockserver.client.http;
+
+import com.google.common.base.Charsets;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+
+/**
+ * A response whose body is read from the upstream connection as it is passed on, rather than being read completely
+ * before it is passed on, so a large download is never held in memory
+ *
+ * The first bytes of the body, up to the capture size, are copied as they are read so the response can still be
+ * logged and verified once it has been passed on
+ *
+ * @author jamesdbloom
+ */
+public class StreamingHttpResponse implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingHttpResponse.class);
+    private final HttpResponse httpResponse;
+    private final CloseableHttpResponse clientResponse;
+    private final InputStream body;
+    private final ByteArrayOutputStream capturedBody;
+    private final int captureSize;
+    private boolean captureTruncated;
+    private Runnable whenClosed;
+    private boolean closed;
+
+    /**
+     * @param httpResponse the status code, headers and cookies of the response
+     * @param clientResponse the response whose body is streamed or null if it has no body
+     * @param captureSize the number of bytes of the body to capture
+     */
+    public StreamingHttpResponse(HttpResponse httpResponse, CloseableHttpResponse clientResponse, int captureSize) throws IOException {
+        this.httpResponse = httpResponse;
+        this.clientResponse = clientResponse;
+        this.captureSize = Math.max(0, captureSize);
+        this.capturedBody = new ByteArrayOutputStream(Math.min(this.captureSize, 8 * 1024));
+        if (clientResponse != null && clientResponse.getEntity() != null) {
+            this.body = new CapturingInputStream(clientResponse.getEntity().getContent());
+        } else {
+            this.body = new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
+    /**
+     * @return the status code, headers and cookies of the response
+     */
+    public HttpResponse getHttpResponse() {
+        return httpResponse;
+    }
+
+    /**
+     * @return false if the response has no body, such as the response to a HEAD request
+     */
+    public boolean hasBody() {
+        return clientResponse != null && clientResponse.getEntity() != null;
+    }
+
+    /**
+     * @return the body which can only be read once
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * @return the status code, headers and cookies of the response with the part of the body read so far, up to the capture size
+     */
+    public synchronized HttpResponse getCapturedHttpResponse() {
+        HttpResponse capturedHttpResponse = new HttpResponse()
+                .withStatusCode(httpResponse.getStatusCode())
+                .withHeaders(httpResponse.getHeaders())
+                .withCookies(httpResponse.getCookies());
+        if (isText()) {
+            capturedHttpResponse.withBody(new String(capturedBody.toByteArray(), Charsets.UTF_8));
+        } else {
+            capturedHttpResponse.withBody(capturedBody.toByteArray());
+        }
+        return capturedHttpResponse;
+    }
+
+    /**
+     * @return false if the content type of the response is not text, a response without a content type is treated as text
+     */
+    private boolean isText() {
+        for (Header header : httpResponse.getHeaders()) {
+            if (header.getName().equalsIgnoreCase("Content-Type") && !header.getValues().isEmpty()) {
+                String contentType = header.getValues().get(0).toLowerCase();
+                return contentType.startsWith("text/")
+                        || contentType.contains("charset=")
+                        || contentType.contains("json")
+                        || contentType.contains("xml")
+                        || contentType.contains("javascript")
+                        || contentType.contains("x-www-form-urlencoded");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if more of the body was read than was captured
+     */
+    public synchronized boolean isCaptureTruncated() {
+        return captureTruncated;
+    }
+
+    /**
+     * @param whenClosed run once when the response is closed, such as to log the captured response
+     */
+    public synchronized StreamingHttpResponse whenClosed(Runnable whenClosed) {
+        this.whenClosed = whenClosed;
+        return this;
+    }
+
+    /**
+     * Releases the upstream connection, if the body has not been read to the end the connection is not reused
+     */
+    public void close() {
+        Runnable runWhenClosed;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            runWhenClosed = whenClosed;
+        }
+        try {
+            if (clientResponse != null) {
+                clientResponse.close();
+            }
+        } catch (IOException ioe) {
+            logger.debug("Exception while closing streamed response", ioe);
+        }
+        if (runWhenClosed != null) {
+            runWhenClosed.run();
+        }
+    }
+
+    private synchronized void capture(byte[] bytes, int offset, int length) {
+        int capturedLength = Math.min(length, captureSize - capturedBody.size());
+        if (capturedLength > 0) {
+            capturedBody.write(bytes, offset, capturedLength);
+        }
+        if (capturedLength < length) {
+            captureTruncated = true;
+        }
+    }
+
+    private class CapturingInputStream extends FilterInputStream {
+
+        private CapturingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                capture(new byte[]{(byte) read}, 0, 1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                capture(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            // skipped bytes can not be captured so they are read instead
+            return Math.max(0, read(new byte[(int) Math.min(Math.max(length, 0), 8 * 1024)]));
+        }
+    }
+}
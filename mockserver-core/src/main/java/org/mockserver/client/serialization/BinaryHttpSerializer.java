@@ -0,0 +1,276 @@
+package org.mockserver.client.serialization;
+
+import com.google.common.base.Charsets;
+import org.mockserver.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes requests and responses into a compact binary form for recording large numbers of them outside of the heap,
+ * every string is written as its length followed by its UTF-8 bytes and every list as its size followed by its items,
+ * a length or size of -1 is used for null, the type of a body is written as its name so the form does not depend on
+ * the order of Body.Type
+ *
+ * The raw bytes of a request body are written once, a string or binary body is rebuilt from them when it is read, as
+ * it was when the request was received, only a body that cannot be rebuilt from them is written as well
+ *
+ * The output is sized for the body before it is written and is returned without being copied, so a large body is only
+ * copied once while it is serialized
+ *
+ * @author jamesdbloom
+ */
+public class BinaryHttpSerializer {
+
+    private static final int NULL = -1;
+    // room for everything other than the body
+    private static final int INITIAL_SIZE = 256;
+
+    /**
+     * @return the serialized request between the buffer's position and limit
+     */
+    public ByteBuffer serialize(HttpRequest httpRequest) {
+        byte[] rawBodyBytes = httpRequest.getRawBodyBytes();
+        SerializedBytes serializedBytes = new SerializedBytes(INITIAL_SIZE + (rawBodyBytes != null ? rawBodyBytes.length : estimatedSize(httpRequest.getBody())));
+        DataOutputStream output = new DataOutputStream(serializedBytes);
+        try {
+            writeString(output, httpRequest.getMethod());
+            writeString(output, httpRequest.getURL());
+            writeString(output, httpRequest.getPath());
+            writeKeysToMultiValues(output, httpRequest.getQueryStringParameters());
+            writeBytes(output, rawBodyBytes);
+            writeBody(output, httpRequest.getBody(), rawBodyBytes != null);
+            writeKeysToMultiValues(output, httpRequest.getHeaders());
+            writeKeysToMultiValues(output, httpRequest.getCookies());
+            output.flush();
+        } catch (IOException ioe) {
+            throw new RuntimeException("Exception while serializing http request [" + httpRequest + "]", ioe);
+        }
+        return serializedBytes.toByteBuffer();
+    }
+
+    /**
+     * @return the serialized response between the buffer's position and limit
+     */
+    public ByteBuffer serialize(HttpResponse httpResponse) {
+        SerializedBytes serializedBytes = new SerializedBytes(INITIAL_SIZE + estimatedSize(httpResponse.getBody()));
+        DataOutputStream output = new DataOutputStream(serializedBytes);
+        try {
+            output.writeInt(httpResponse.getStatusCode() != null ? httpResponse.getStatusCode() : NULL);
+            writeBody(output, httpResponse.getBody(), false);
+            writeKeysToMultiValues(output, httpResponse.getHeaders());
+            writeKeysToMultiValues(output, httpResponse.getCookies());
+            Delay delay = httpResponse.getDelay();
+            if (delay != null) {
+                writeString(output, delay.getTimeUnit().name());
+                output.writeLong(delay.getValue());
+            } else {
+                writeString(output, null);
+            }
+            output.flush();
+        } catch (IOException ioe) {
+            throw new RuntimeException("Exception while serializing http response [" + httpResponse + "]", ioe);
+        }
+        return serializedBytes.toByteBuffer();
+    }
+
+    /**
+     * @return the size of the body when serialized, exact for a binary body and for a string body of single byte characters
+     */
+    private int estimatedSize(Body<?> body) {
+        if (body instanceof BinaryBody && ((BinaryBody) body).getValue() != null) {
+            return ((BinaryBody) body).getValue().length;
+        } else if (body instanceof StringBody && ((StringBody) body).getValue() != null) {
+            return ((StringBody) body).getValue().length();
+        }
+        return 0;
+    }
+
+    /**
+     * @param buffer the serialized request starting at the buffer's position, which is moved past the request
+     */
+    public HttpRequest deserializeHttpRequest(ByteBuffer buffer) {
+        HttpRequest httpRequest = new HttpRequest()
+                .withMethod(readString(buffer))
+                .withURL(readString(buffer))
+                .withPath(readString(buffer));
+        int parameterCount = buffer.getInt();
+        List<Parameter> parameters = new ArrayList<Parameter>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            parameters.add(new Parameter(readString(buffer), readStrings(buffer)));
+        }
+        httpRequest.withQueryStringParameters(parameters);
+        byte[] rawBodyBytes = readBytes(buffer);
+        Body<?> body = readBody(buffer, rawBodyBytes);
+        if (body != null) {
+            httpRequest.withBody(body);
+        }
+        httpRequest.setRawBodyBytes(rawBodyBytes);
+        httpRequest.withHeaders(readHeaders(buffer));
+        httpRequest.withCookies(readCookies(buffer));
+        return httpRequest;
+    }
+
+    /**
+     * @param buffer the serialized response starting at the buffer's position, which is moved past the response
+     */
+    public HttpResponse deserializeHttpResponse(ByteBuffer buffer) {
+        HttpResponse httpResponse = new HttpResponse();
+        int statusCode = buffer.getInt();
+        httpResponse.withStatusCode(statusCode != NULL ? statusCode : null);
+        httpResponse.withBody(readBody(buffer, null));
+        httpResponse.withHeaders(readHeaders(buffer));
+        httpResponse.withCookies(readCookies(buffer));
+        String timeUnit = readString(buffer);
+        if (timeUnit != null) {
+            httpResponse.withDelay(new Delay(TimeUnit.valueOf(timeUnit), buffer.getLong()));
+        }
+        return httpResponse;
+    }
+
+    private boolean isRebuiltFromRawBodyBytes(Body.Type bodyType) {
+        return bodyType == Body.Type.STRING || bodyType == Body.Type.BINARY;
+    }
+
+    /**
+     * @param rawBodyBytesWritten true if the raw bytes the body can be rebuilt from have already been written
+     */
+    private void writeBody(DataOutputStream output, Body<?> body, boolean rawBodyBytesWritten) throws IOException {
+        if (body == null) {
+            writeString(output, null);
+            return;
+        }
+        writeString(output, body.getType().name());
+        if (rawBodyBytesWritten && isRebuiltFromRawBodyBytes(body.getType())) {
+            return;
+        }
+        switch (body.getType()) {
+            case BINARY:
+                writeBytes(output, ((BinaryBody) body).getValue());
+                break;
+            case PARAMETERS:
+                writeKeysToMultiValues(output, ((ParameterBody) body).getValue());
+                break;
+            default:
+                writeString(output, ((StringBody) body).getValue());
+                break;
+        }
+    }
+
+    /**
+     * @param rawBodyBytes the raw bytes already read for the body or null if there are none
+     */
+    private Body<?> readBody(ByteBuffer buffer, byte[] rawBodyBytes) {
+        String type = readString(buffer);
+        if (type == null) {
+            return null;
+        }
+        Body.Type bodyType = Body.Type.valueOf(type);
+        if (rawBodyBytes != null && isRebuiltFromRawBodyBytes(bodyType)) {
+            // left undecoded until the value is first needed
+            return bodyType == Body.Type.BINARY ? new BinaryBody(rawBodyBytes) : new StringBody(rawBodyBytes, Charsets.UTF_8);
+        }
+        switch (bodyType) {
+            case BINARY:
+                return new BinaryBody(readBytes(buffer));
+            case PARAMETERS:
+                int parameterCount = buffer.getInt();
+                List<Parameter> parameters = new ArrayList<Parameter>(parameterCount);
+                for (int i = 0; i < parameterCount; i++) {
+                    parameters.add(new Parameter(readString(buffer), readStrings(buffer)));
+                }
+                return new ParameterBody(parameters);
+            case STRING:
+                // left undecoded until the value is first needed
+                byte[] bytes = readBytes(buffer);
+                return bytes != null ? new StringBody(bytes, Charsets.UTF_8) : new StringBody(null, bodyType);
+            default:
+                return new StringBody(readString(buffer), bodyType);
+        }
+    }
+
+    private List<Header> readHeaders(ByteBuffer buffer) {
+        int headerCount = buffer.getInt();
+        List<Header> headers = new ArrayList<Header>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(new Header(readString(buffer), readStrings(buffer)));
+        }
+        return headers;
+    }
+
+    private List<Cookie> readCookies(ByteBuffer buffer) {
+        int cookieCount = buffer.getInt();
+        List<Cookie> cookies = new ArrayList<Cookie>(cookieCount);
+        for (int i = 0; i < cookieCount; i++) {
+            cookies.add(new Cookie(readString(buffer), readStrings(buffer)));
+        }
+        return cookies;
+    }
+
+    private void writeKeysToMultiValues(DataOutputStream output, List<? extends KeyToMultiValue> keysToMultiValues) throws IOException {
+        output.writeInt(keysToMultiValues.size());
+        for (KeyToMultiValue keyToMultiValue : keysToMultiValues) {
+            writeString(output, keyToMultiValue.getName());
+            output.writeInt(keyToMultiValue.getValues().size());
+            for (String value : keyToMultiValue.getValues()) {
+                writeString(output, value);
+            }
+        }
+    }
+
+    private List<String> readStrings(ByteBuffer buffer) {
+        int valueCount = buffer.getInt();
+        List<String> values = new ArrayList<String>(valueCount);
+        for (int i = 0; i < valueCount; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    private void writeString(DataOutputStream output, String value) throws IOException {
+        writeBytes(output, value != null ? value.getBytes(Charsets.UTF_8) : null);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        byte[] bytes = readBytes(buffer);
+        return bytes != null ? new String(bytes, Charsets.UTF_8) : null;
+    }
+
+    private void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        if (bytes != null) {
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else {
+            output.writeInt(NULL);
+        }
+    }
+
+    private byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static class SerializedBytes extends ByteArrayOutputStream {
+
+        private SerializedBytes(int size) {
+            super(size);
+        }
+
+        /**
+         * @return the bytes written, wrapped rather than copied
+         */
+        private ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.mockserver.collections;
 
+import com.google.common.base.Strings;
 import org.mockserver.matchers.RegexStringMatcher;
 
 import java.util.*;
@@ -7,68 +8,174 @@ import java.util.*;
 /**
  * Map that uses case insensitive regex expression matching for keys
  *
+ * Literal keys are indexed by their lower case form so looking up a literal key is a hash lookup, only keys
+ * that are genuine regex expressions are scanned, a lookup key that is itself a regex still scans every key
+ *
+ * Not synchronized, maps are built once (i.e. per request or per expectation) and then only read, the key,
+ * entry and value views are read only so all modifications go through put, remove and clear
+ *
  * @author jamesdbloom
  */
 class CaseInsensitiveRegexHashMap<V> extends LinkedHashMap<String, V> implements Map<String, V> {
     static final long serialVersionUID = 1530623482381786485L;
+    private final Map<String, List<String>> literalKeysByLowerCaseKey = new HashMap<String, List<String>>();
+    private final Map<String, RegexStringMatcher> regexKeys = new LinkedHashMap<String, RegexStringMatcher>();
+
+    private static String toLowerCase(String key) {
+        return key.toLowerCase(Locale.ENGLISH);
+    }
 
     @Override
-    public synchronized boolean containsKey(Object key) {
+    public boolean containsKey(Object key) {
         if (key instanceof String) {
-            if (super.containsKey(key)) {
-                return true;
-            } else {
-                for (String keyToCompare : keySet()) {
-                    if (RegexStringMatcher.matches((String) key, keyToCompare, true)) {
-                        return true;
-                    }
-                }
-            }
+            return super.containsKey(key) || !matchingKeys((String) key).isEmpty();
         }
         return false;
     }
 
     @Override
-    public synchronized V get(Object key) {
+    public V get(Object key) {
         if (key instanceof String) {
-            if (super.get(key) != null) {
-                return super.get(key);
+            V value = super.get(key);
+            if (value != null) {
+                return value;
             } else {
-                for (String keyToCompare : keySet()) {
-                    if (RegexStringMatcher.matches((String) key, keyToCompare, true)) {
-                        return super.get(keyToCompare);
-                    }
+                List<String> matchingKeys = matchingKeys((String) key);
+                if (!matchingKeys.isEmpty()) {
+                    return super.get(matchingKeys.get(0));
                 }
             }
         }
         return null;
     }
 
-    public synchronized Collection<V> getAll(Object key) {
+    public Collection<V> getAll(Object key) {
         List<V> values = new ArrayList<V>();
         if (key instanceof String) {
-            for (String keyToCompare : keySet()) {
-                if (RegexStringMatcher.matches((String) key, keyToCompare, true)) {
-                    values.add(super.get(keyToCompare));
-                }
+            for (String matchingKey : matchingKeys((String) key)) {
+                values.add(super.get(matchingKey));
             }
         }
         return values;
     }
 
+    /**
+     * Returns the stored key that is equal to the key ignoring case, without any regex matching, or null if there is no such key
+     */
+    String existingKeyIgnoringCase(String key) {
+        if (key == null) {
+            return null;
+        } else if (RegexStringMatcher.isLiteral(key)) {
+            List<String> literalKeys = literalKeysByLowerCaseKey.get(toLowerCase(key));
+            return (literalKeys != null ? literalKeys.get(0) : null);
+        } else {
+            for (String regexKey : regexKeys.keySet()) {
+                if (regexKey.equalsIgnoreCase(key)) {
+                    return regexKey;
+                }
+            }
+            return null;
+        }
+    }
+
+    private List<String> matchingKeys(String key) {
+        List<String> matchingKeys = new ArrayList<String>();
+        if (!Strings.isNullOrEmpty(key) && RegexStringMatcher.isLiteral(key)) {
+            List<String> literalKeys = literalKeysByLowerCaseKey.get(toLowerCase(key));
+            if (literalKeys != null) {
+                matchingKeys.addAll(literalKeys);
+            }
+            for (Map.Entry<String, RegexStringMatcher> regexKey : regexKeys.entrySet()) {
+                if (regexKey.getValue().matches(key)) {
+                    matchingKeys.add(regexKey.getKey());
+                }
+            }
+        } else if (key != null) {
+            // the key is itself a regex (or empty) so it could match any stored key
+            for (String keyToCompare : super.keySet()) {
+                if (key.equals(keyToCompare) || RegexStringMatcher.matches(key, keyToCompare, true)) {
+                    matchingKeys.add(keyToCompare);
+                }
+            }
+        }
+        return matchingKeys;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        if (key != null && !super.containsKey(key)) {
+            if (RegexStringMatcher.isLiteral(key)) {
+                String lowerCaseKey = toLowerCase(key);
+                List<String> literalKeys = literalKeysByLowerCaseKey.get(lowerCaseKey);
+                if (literalKeys == null) {
+                    literalKeys = new ArrayList<String>(1);
+                    literalKeysByLowerCaseKey.put(lowerCaseKey, literalKeys);
+                }
+                literalKeys.add(key);
+            } else {
+                regexKeys.put(key, new RegexStringMatcher(key, true));
+            }
+        }
+        return super.put(key, value);
+    }
+
     @Override
-    public synchronized V remove(Object key) {
+    public void putAll(Map<? extends String, ? extends V> map) {
+        for (Map.Entry<? extends String, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
         if (key instanceof String) {
             if (super.get(key) != null) {
-                return super.remove(key);
+                return removeKey((String) key);
             } else {
-                for (String keyToCompare : keySet()) {
-                    if (RegexStringMatcher.matches((String) key, keyToCompare, true)) {
-                        return super.remove(keyToCompare);
-                    }
+                List<String> matchingKeys = matchingKeys((String) key);
+                if (!matchingKeys.isEmpty()) {
+                    return removeKey(matchingKeys.get(0));
                 }
             }
         }
         return null;
     }
+
+    private V removeKey(String key) {
+        if (RegexStringMatcher.isLiteral(key)) {
+            String lowerCaseKey = toLowerCase(key);
+            List<String> literalKeys = literalKeysByLowerCaseKey.get(lowerCaseKey);
+            if (literalKeys != null) {
+                literalKeys.remove(key);
+                if (literalKeys.isEmpty()) {
+                    literalKeysByLowerCaseKey.remove(lowerCaseKey);
+                }
+            }
+        } else {
+            regexKeys.remove(key);
+        }
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        literalKeysByLowerCaseKey.clear();
+        regexKeys.clear();
+        super.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(super.keySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(super.values());
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return Collections.unmodifiableSet(super.entrySet());
+    }
 }
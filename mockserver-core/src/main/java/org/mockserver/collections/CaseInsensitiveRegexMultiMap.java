@@ -8,48 +8,50 @@ import java.util.*;
 /**
  * MultiMap that uses case insensitive regex expression matching for keys and values
  *
+ * Not synchronized, a multimap is built once (i.e. per request or per expectation) and then only read
+ *
  * @author jamesdbloom
  */
 public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString implements Map<String, String> {
     private final CaseInsensitiveRegexHashMap<List<String>> backingMap = new CaseInsensitiveRegexHashMap<List<String>>();
 
+    private static boolean containsMatchingValue(Collection<List<String>> allValues, String value) {
+        for (List<String> values : allValues) {
+            for (String valueToCompare : values) {
+                if (RegexStringMatcher.matches(value, valueToCompare, false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
-    public synchronized int size() {
+    public int size() {
         return backingMap.size();
     }
 
     @Override
-    public synchronized boolean isEmpty() {
+    public boolean isEmpty() {
         return backingMap.isEmpty();
     }
 
     @Override
-    public synchronized boolean containsKey(Object key) {
+    public boolean containsKey(Object key) {
         return backingMap.containsKey(key);
     }
 
-    public synchronized boolean containsKeyValue(String key, String value) {
-        for (String matcherKey : backingMap.keySet()) {
-            for (List<String> allMatcherKeyValues : backingMap.getAll(matcherKey)) {
-                for (String matcherKeyValue : allMatcherKeyValues) {
-                    if (RegexStringMatcher.matches(matcherKey, key, true) && RegexStringMatcher.matches(value, matcherKeyValue, false)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    public boolean containsKeyValue(String key, String value) {
+        return containsMatchingValue(backingMap.getAll(key), value);
     }
 
     @Override
-    public synchronized boolean containsValue(Object value) {
+    public boolean containsValue(Object value) {
         if (value instanceof String) {
-            for (String key : backingMap.keySet()) {
-                for (List<String> allKeyValues : backingMap.getAll(key)) {
-                    for (String keyValue : allKeyValues) {
-                        if (RegexStringMatcher.matches(keyValue, (String) value, false)) {
-                            return true;
-                        }
+            for (List<String> values : backingMap.values()) {
+                for (String valueToCompare : values) {
+                    if (RegexStringMatcher.matches(valueToCompare, (String) value, false)) {
+                        return true;
                     }
                 }
             }
@@ -58,12 +60,14 @@ public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString impleme
     }
 
     public boolean containsAll(CaseInsensitiveRegexMultiMap subSet) {
-        for (String subSetKey : subSet.keySet()) {
-            if (!containsKey(subSetKey)) { // check if sub-set key exists in super-set
+        for (Entry<String, List<String>> subSetEntry : subSet.backingMap.entrySet()) {
+            // literal sub-set keys are a hash lookup, only regex keys on either side are scanned
+            Collection<List<String>> superSetValues = backingMap.getAll(subSetEntry.getKey());
+            if (superSetValues.isEmpty()) { // check if sub-set key exists in super-set
                 return false;
             } else { // check if sub-set value matches at least one super-set value using regex
-                for (String subSetValue : subSet.getAll(subSetKey)) {
-                    if (!containsKeyValue(subSetKey, subSetValue)) {
+                for (String subSetValue : subSetEntry.getValue()) {
+                    if (!containsMatchingValue(superSetValues, subSetValue)) {
                         return false;
                     }
                 }
@@ -73,7 +77,7 @@ public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString impleme
     }
 
     @Override
-    public synchronized String get(Object key) {
+    public String get(Object key) {
         List<String> values = backingMap.get(key);
         if (values != null && values.size() > 0) {
             return values.get(0);
@@ -82,7 +86,7 @@ public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString impleme
         }
     }
 
-    public synchronized List<String> getAll(Object key) {
+    public List<String> getAll(Object key) {
         List<String> all = new ArrayList<String>();
         for (List<String> subList : backingMap.getAll(key)) {
             all.addAll(subList);
@@ -90,38 +94,39 @@ public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString impleme
         return all;
     }
 
-    @Override
-    public synchronized String put(String key, String value) {
-        List<String> list = Collections.synchronizedList(new ArrayList<String>());
-        if (containsKey(key)) {
-            list.addAll(backingMap.get(key));
+    private List<String> valuesForKey(String key) {
+        // values are added to the key that is equal ignoring case, not to any key that matches as a regex
+        String existingKey = backingMap.existingKeyIgnoringCase(key);
+        if (existingKey != null) {
+            return backingMap.get(existingKey);
+        } else {
+            List<String> values = new ArrayList<String>();
+            backingMap.put(key, values);
+            return values;
         }
-        list.add(value);
-        backingMap.put(key, list);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        valuesForKey(key).add(value);
         return value;
     }
 
-    public synchronized List<String> put(String key, List<String> values) {
-        if (containsKey(key)) {
-            for (String value : values) {
-                put(key, value);
-            }
-        } else {
-            backingMap.put(key, values);
-        }
+    public List<String> put(String key, List<String> values) {
+        valuesForKey(key).addAll(values);
         return values;
     }
 
     public void putValuesForNewKeys(CaseInsensitiveRegexMultiMap multiMap) {
         for (String key : multiMap.keySet()) {
             if (!containsKey(key)) {
-                backingMap.put(key, multiMap.getAll(key));
+                backingMap.put(key, new ArrayList<String>(multiMap.getAll(key)));
             }
         }
     }
 
     @Override
-    public synchronized String remove(Object key) {
+    public String remove(Object key) {
         List<String> values = backingMap.get(key);
         if (values != null && values.size() > 0) {
             return values.remove(0);
@@ -130,29 +135,29 @@ public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString impleme
         }
     }
 
-    public synchronized List<String> removeAll(String key) {
+    public List<String> removeAll(String key) {
         return backingMap.remove(key);
     }
 
     @Override
-    public synchronized void putAll(Map<? extends String, ? extends String> map) {
+    public void putAll(Map<? extends String, ? extends String> map) {
         for (Entry<? extends String, ? extends String> entry : map.entrySet()) {
             put(entry.getKey(), entry.getValue());
         }
     }
 
     @Override
-    public synchronized void clear() {
+    public void clear() {
         backingMap.clear();
     }
 
     @Override
-    public synchronized Set<String> keySet() {
+    public Set<String> keySet() {
         return backingMap.keySet();
     }
 
     @Override
-    public synchronized Collection<String> values() {
+    public Collection<String> values() {
         Collection<String> values = new ArrayList<String>();
         for (List<String> valuesForKey : backingMap.values()) {
             values.addAll(valuesForKey);
@@ -161,7 +166,7 @@ public class CaseInsensitiveRegexMultiMap extends EqualsHashCodeToString impleme
     }
 
     @Override
-    public synchronized Set<Entry<String, String>> entrySet() {
+    public Set<Entry<String, String>> entrySet() {
         Set<Entry<String, String>> entrySet = new LinkedHashSet<Entry<String, String>>();
         for (Entry<String, List<String>> entry : backingMap.entrySet()) {
             for (String value : entry.getValue()) {
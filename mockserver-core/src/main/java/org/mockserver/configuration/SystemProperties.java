@@ -16,6 +16,22 @@ public class SystemProperties {
 
     static final long DEFAULT_MAX_TIMEOUT = 120;
     static final int DEFAULT_BUFFER_SIZE = 1024 * 1500;
+    static final int DEFAULT_REGEX_PATTERN_CACHE_SIZE = 1000;
+    static final int DEFAULT_BODY_MATCH_RESULT_CACHE_SIZE = 0;
+    static final long DEFAULT_BODY_MATCH_RESULT_CACHE_TIME_TO_LIVE = 60;
+    static final int DEFAULT_EVENT_LOOP_THREAD_COUNT = Runtime.getRuntime().availableProcessors() * 2;
+    static final int DEFAULT_ACTION_HANDLER_THREAD_COUNT = Math.max(5, Runtime.getRuntime().availableProcessors());
+    static final int DEFAULT_STREAMING_THREAD_COUNT = Math.max(5, Runtime.getRuntime().availableProcessors());
+    static final int DEFAULT_ACCEPTOR_THREAD_COUNT = 1;
+    static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+    static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+    static final long DEFAULT_KEEP_ALIVE_IDLE_TIMEOUT = 60;
+    static final int DEFAULT_MAX_UPSTREAM_CONNECTIONS_PER_HOST = 20;
+    static final int DEFAULT_MAX_IDLE_UPSTREAM_CONNECTIONS_PER_HOST = 20;
+    static final long DEFAULT_UPSTREAM_CONNECTION_IDLE_TIMEOUT = 30;
+    static final int DEFAULT_STREAMED_RESPONSE_CAPTURE_SIZE = 64 * 1024;
+    static final int DEFAULT_REQUEST_LOG_SEGMENT_SIZE = 16 * 1024 * 1024;
+    static final int DEFAULT_REQUEST_LOG_MAX_SEGMENTS = 64;
     private static final Logger logger = LoggerFactory.getLogger(SystemProperties.class);
 
     // general config
@@ -35,6 +51,177 @@ public class SystemProperties {
         System.setProperty("mockserver.requestBufferSize", "" + size);
     }
 
+    // matcher config
+    public static int regexPatternCacheSize() {
+        return SystemProperties.readIntegerProperty("mockserver.regexPatternCacheSize", SystemProperties.DEFAULT_REGEX_PATTERN_CACHE_SIZE);
+    }
+
+    public static void regexPatternCacheSize(int size) {
+        System.setProperty("mockserver.regexPatternCacheSize", "" + size);
+    }
+
+    public static int bodyMatchResultCacheSize() {
+        return SystemProperties.readIntegerProperty("mockserver.bodyMatchResultCacheSize", SystemProperties.DEFAULT_BODY_MATCH_RESULT_CACHE_SIZE);
+    }
+
+    public static void bodyMatchResultCacheSize(int size) {
+        System.setProperty("mockserver.bodyMatchResultCacheSize", "" + size);
+    }
+
+    public static long bodyMatchResultCacheTimeToLive() {
+        return SystemProperties.readLongProperty("mockserver.bodyMatchResultCacheTimeToLive", TimeUnit.SECONDS.toMillis(SystemProperties.DEFAULT_BODY_MATCH_RESULT_CACHE_TIME_TO_LIVE));
+    }
+
+    public static void bodyMatchResultCacheTimeToLive(long timeToLive) {
+        System.setProperty("mockserver.bodyMatchResultCacheTimeToLive", "" + timeToLive);
+    }
+
+    public static boolean xpathStreamingEvaluation() {
+        return SystemProperties.readBooleanProperty("mockserver.xpathStreamingEvaluation", false);
+    }
+
+    public static void xpathStreamingEvaluation(boolean enabled) {
+        System.setProperty("mockserver.xpathStreamingEvaluation", "" + enabled);
+    }
+
+    // netty config
+    public static int eventLoopThreadCount() {
+        return SystemProperties.readIntegerProperty("mockserver.eventLoopThreadCount", SystemProperties.DEFAULT_EVENT_LOOP_THREAD_COUNT);
+    }
+
+    public static void eventLoopThreadCount(int count) {
+        System.setProperty("mockserver.eventLoopThreadCount", "" + count);
+    }
+
+    public static int actionHandlerThreadCount() {
+        return SystemProperties.readIntegerProperty("mockserver.actionHandlerThreadCount", SystemProperties.DEFAULT_ACTION_HANDLER_THREAD_COUNT);
+    }
+
+    public static void actionHandlerThreadCount(int count) {
+        System.setProperty("mockserver.actionHandlerThreadCount", "" + count);
+    }
+
+    public static int streamingThreadCount() {
+        return SystemProperties.readIntegerProperty("mockserver.streamingThreadCount", SystemProperties.DEFAULT_STREAMING_THREAD_COUNT);
+    }
+
+    public static void streamingThreadCount(int count) {
+        System.setProperty("mockserver.streamingThreadCount", "" + count);
+    }
+
+    public static boolean nativeTransport() {
+        return SystemProperties.readBooleanProperty("mockserver.nativeTransport", false);
+    }
+
+    public static void nativeTransport(boolean enabled) {
+        System.setProperty("mockserver.nativeTransport", "" + enabled);
+    }
+
+    public static int acceptorThreadCount() {
+        return SystemProperties.readIntegerProperty("mockserver.acceptorThreadCount", SystemProperties.DEFAULT_ACCEPTOR_THREAD_COUNT);
+    }
+
+    public static void acceptorThreadCount(int count) {
+        System.setProperty("mockserver.acceptorThreadCount", "" + count);
+    }
+
+    public static boolean tcpNoDelay() {
+        return SystemProperties.readBooleanProperty("mockserver.tcpNoDelay", true);
+    }
+
+    public static void tcpNoDelay(boolean enabled) {
+        System.setProperty("mockserver.tcpNoDelay", "" + enabled);
+    }
+
+    public static int writeBufferHighWaterMark() {
+        return SystemProperties.readIntegerProperty("mockserver.writeBufferHighWaterMark", SystemProperties.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK);
+    }
+
+    public static void writeBufferHighWaterMark(int size) {
+        System.setProperty("mockserver.writeBufferHighWaterMark", "" + size);
+    }
+
+    public static int writeBufferLowWaterMark() {
+        return SystemProperties.readIntegerProperty("mockserver.writeBufferLowWaterMark", SystemProperties.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK);
+    }
+
+    public static void writeBufferLowWaterMark(int size) {
+        System.setProperty("mockserver.writeBufferLowWaterMark", "" + size);
+    }
+
+    public static long keepAliveIdleTimeout() {
+        return SystemProperties.readLongProperty("mockserver.keepAliveIdleTimeout", TimeUnit.SECONDS.toMillis(SystemProperties.DEFAULT_KEEP_ALIVE_IDLE_TIMEOUT));
+    }
+
+    public static void keepAliveIdleTimeout(long timeout) {
+        System.setProperty("mockserver.keepAliveIdleTimeout", "" + timeout);
+    }
+
+    public static int maxUpstreamConnectionsPerHost() {
+        return SystemProperties.readIntegerProperty("mockserver.maxUpstreamConnectionsPerHost", SystemProperties.DEFAULT_MAX_UPSTREAM_CONNECTIONS_PER_HOST);
+    }
+
+    public static void maxUpstreamConnectionsPerHost(int count) {
+        System.setProperty("mockserver.maxUpstreamConnectionsPerHost", "" + count);
+    }
+
+    public static int maxIdleUpstreamConnectionsPerHost() {
+        return SystemProperties.readIntegerProperty("mockserver.maxIdleUpstreamConnectionsPerHost", SystemProperties.DEFAULT_MAX_IDLE_UPSTREAM_CONNECTIONS_PER_HOST);
+    }
+
+    public static void maxIdleUpstreamConnectionsPerHost(int count) {
+        System.setProperty("mockserver.maxIdleUpstreamConnectionsPerHost", "" + count);
+    }
+
+    public static long upstreamConnectionIdleTimeout() {
+        return SystemProperties.readLongProperty("mockserver.upstreamConnectionIdleTimeout", TimeUnit.SECONDS.toMillis(SystemProperties.DEFAULT_UPSTREAM_CONNECTION_IDLE_TIMEOUT));
+    }
+
+    public static void upstreamConnectionIdleTimeout(long timeout) {
+        System.setProperty("mockserver.upstreamConnectionIdleTimeout", "" + timeout);
+    }
+
+    public static boolean streamForwardedResponses() {
+        return SystemProperties.readBooleanProperty("mockserver.streamForwardedResponses", false);
+    }
+
+    public static void streamForwardedResponses(boolean enabled) {
+        System.setProperty("mockserver.streamForwardedResponses", "" + enabled);
+    }
+
+    public static int streamedResponseCaptureSize() {
+        return SystemProperties.readIntegerProperty("mockserver.streamedResponseCaptureSize", SystemProperties.DEFAULT_STREAMED_RESPONSE_CAPTURE_SIZE);
+    }
+
+    public static void streamedResponseCaptureSize(int size) {
+        System.setProperty("mockserver.streamedResponseCaptureSize", "" + size);
+    }
+
+    // request log config
+    public static int requestLogSegmentSize() {
+        return SystemProperties.readIntegerProperty("mockserver.requestLogSegmentSize", SystemProperties.DEFAULT_REQUEST_LOG_SEGMENT_SIZE);
+    }
+
+    public static void requestLogSegmentSize(int size) {
+        System.setProperty("mockserver.requestLogSegmentSize", "" + size);
+    }
+
+    public static int requestLogMaxSegments() {
+        return SystemProperties.readIntegerProperty("mockserver.requestLogMaxSegments", SystemProperties.DEFAULT_REQUEST_LOG_MAX_SEGMENTS);
+    }
+
+    public static void requestLogMaxSegments(int count) {
+        System.setProperty("mockserver.requestLogMaxSegments", "" + count);
+    }
+
+    public static String requestLogDirectory() {
+        return System.getProperty("mockserver.requestLogDirectory", System.getProperty("java.io.tmpdir"));
+    }
+
+    public static void requestLogDirectory(String directory) {
+        System.setProperty("mockserver.requestLogDirectory", directory);
+    }
+
     // mockserver config
     public static int serverStopPort(Integer port, Integer securePort) {
         return SystemProperties.readIntegerProperty("mockserver.serverStopPort", Math.max((port != null ? port : 0), (securePort != null ? securePort : 0)) + 1);
@@ -71,6 +258,10 @@ public class SystemProperties {
         }
     }
 
+    private static boolean readBooleanProperty(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(System.getProperty(key, "" + defaultValue));
+    }
+
     private static Long readLongProperty(String key, long defaultValue) {
         try {
             return Long.parseLong(System.getProperty(key, "" + defaultValue));
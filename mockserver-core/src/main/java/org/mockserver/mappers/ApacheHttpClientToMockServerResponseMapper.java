@@ -20,10 +20,7 @@ public class ApacheHttpClientToMockServerResponseMapper {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     public HttpResponse mapApacheHttpClientResponseToMockServerResponse(CloseableHttpResponse clientResponse, boolean binaryBody) throws IOException {
-        HttpResponse httpResponse = new HttpResponse();
-        setStatusCode(httpResponse, clientResponse);
-        setHeaders(httpResponse, clientResponse);
-        setCookies(httpResponse);
+        HttpResponse httpResponse = mapApacheHttpClientResponseHeadToMockServerResponse(clientResponse);
         if (binaryBody) {
             if (clientResponse.getEntity() != null) {
                 setBody(httpResponse, EntityUtils.toByteArray(clientResponse.getEntity()));
@@ -36,6 +33,17 @@ public class ApacheHttpClientToMockServerResponseMapper {
         return httpResponse;
     }
 
+    /**
+     * Maps the status code, headers and cookies of a response leaving its body unread
+     */
+    public HttpResponse mapApacheHttpClientResponseHeadToMockServerResponse(CloseableHttpResponse clientResponse) {
+        HttpResponse httpResponse = new HttpResponse();
+        setStatusCode(httpResponse, clientResponse);
+        setHeaders(httpResponse, clientResponse);
+        setCookies(httpResponse);
+        return httpResponse;
+    }
+
     private void setStatusCode(HttpResponse httpResponse, CloseableHttpResponse clientResponse) {
         if (clientResponse.getStatusLine() != null) {
             httpResponse.withStatusCode(clientResponse.getStatusLine().getStatusCode());
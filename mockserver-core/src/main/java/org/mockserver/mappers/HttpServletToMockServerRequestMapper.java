@@ -54,7 +54,7 @@ public class HttpServletToMockServerRequestMapper {
     private void setBody(HttpRequest httpRequest, HttpServletRequest httpServletRequest) {
         byte[] bodyBytes = IOStreamUtils.readInputStreamToByteArray(httpServletRequest);
         httpRequest.setRawBodyBytes(bodyBytes);
-        httpRequest.withBody(new StringBody(new String(bodyBytes, Charsets.UTF_8), Body.Type.STRING));
+        httpRequest.withBody(new StringBody(bodyBytes, Charsets.UTF_8));
     }
 
     private void setHeaders(HttpRequest httpRequest, HttpServletRequest httpServletRequest) {
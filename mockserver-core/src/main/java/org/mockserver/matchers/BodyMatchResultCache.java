@@ -0,0 +1,88 @@
+package org.mockserver.matchers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, thread safe cache of the result of matching a body matcher against a request body, keyed on the identity
+ * of the body matcher and a digest of the body, so repeatedly sent identical bodies are only matched once per expectation
+ *
+ * Disabled when the maximum size is zero or less
+ *
+ * @author jamesdbloom
+ */
+public class BodyMatchResultCache {
+    private final Cache<Key, Boolean> results;
+
+    public BodyMatchResultCache(int maximumSize, long timeToLiveInMillis) {
+        if (maximumSize > 0) {
+            results = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(timeToLiveInMillis, TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+        } else {
+            results = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return results != null;
+    }
+
+    /**
+     * @return the cached result or null if there is no cached result for this body matcher and body digest
+     */
+    public Boolean get(BodyMatcher<?> bodyMatcher, HashCode bodyDigest) {
+        return (results != null ? results.getIfPresent(new Key(bodyMatcher, bodyDigest)) : null);
+    }
+
+    public void put(BodyMatcher<?> bodyMatcher, HashCode bodyDigest, boolean result) {
+        if (results != null) {
+            results.put(new Key(bodyMatcher, bodyDigest), result);
+        }
+    }
+
+    public long hitCount() {
+        return (results != null ? results.stats().hitCount() : 0);
+    }
+
+    public long size() {
+        return (results != null ? results.size() : 0);
+    }
+
+    public void clear() {
+        if (results != null) {
+            results.invalidateAll();
+        }
+    }
+
+    private static class Key {
+        // compared by identity, equal matchers from different expectations are cached separately
+        private final BodyMatcher<?> bodyMatcher;
+        private final HashCode bodyDigest;
+
+        private Key(BodyMatcher<?> bodyMatcher, HashCode bodyDigest) {
+            this.bodyMatcher = bodyMatcher;
+            this.bodyDigest = bodyDigest;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            } else if (other instanceof Key) {
+                return bodyMatcher == ((Key) other).bodyMatcher && bodyDigest.equals(((Key) other).bodyDigest);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(bodyMatcher) + bodyDigest.hashCode();
+        }
+    }
+}
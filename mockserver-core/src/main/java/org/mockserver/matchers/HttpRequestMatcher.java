@@ -3,7 +3,6 @@ package org.mockserver.matchers;
 import org.mockserver.client.serialization.ObjectMapperFactory;
 import org.mockserver.model.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -100,33 +99,33 @@ public class HttpRequestMatcher extends EqualsHashCodeToString implements Matche
     }
 
     public boolean matches(HttpRequest httpRequest) {
-        if (httpRequest != null) {
-            boolean methodMatches = matches(methodMatcher, httpRequest.getMethod());
-            boolean urlMatches = matches(urlMatcher, httpRequest.getURL());
-            boolean pathMatches = matches(pathMatcher, httpRequest.getPath());
-            boolean queryStringParametersMatches = matches(queryStringParameterMatcher, (httpRequest.getQueryStringParameters() != null ? new ArrayList<KeyToMultiValue>(httpRequest.getQueryStringParameters()) : null));
-            boolean bodyMatches;
-            if (bodyMatcher instanceof BinaryMatcher) {
-                bodyMatches = matches(bodyMatcher, httpRequest.getRawBodyBytes());
-            } else {
-                bodyMatches = matches(bodyMatcher, (httpRequest.getBody() != null ? httpRequest.getBody().toString() : ""));
-            }
-            boolean headersMatch = matches(headerMatcher, (httpRequest.getHeaders() != null ? new ArrayList<KeyToMultiValue>(httpRequest.getHeaders()) : null));
-            boolean cookiesMatch = matches(cookieMatcher, (httpRequest.getCookies() != null ? new ArrayList<KeyToMultiValue>(httpRequest.getCookies()) : null));
-            boolean result = methodMatches && urlMatches && pathMatches && queryStringParametersMatches && bodyMatches && headersMatch && cookiesMatch;
+        return matchesContext(httpRequest != null ? new MatchContext(httpRequest) : null);
+    }
+
+    public boolean matchesContext(MatchContext matchContext) {
+        if (matchContext != null) {
+            // cheapest first, stopping at the first sub-matcher that fails
+            boolean result = methodMatches(matchContext)
+                    && pathMatches(matchContext)
+                    && urlMatches(matchContext)
+                    && queryStringParametersMatches(matchContext)
+                    && cookiesMatch(matchContext)
+                    && headersMatch(matchContext)
+                    && bodyMatches(matchContext);
             if (!result && logger.isDebugEnabled()) {
+                // only evaluate every sub-matcher when the full reason for the failed match is going to be logged
                 logger.debug("\n\nMatcher:" + System.getProperty("line.separator") + System.getProperty("line.separator") +
                         "[" + this + "]" + System.getProperty("line.separator") + System.getProperty("line.separator") +
                         "did not match request:" + System.getProperty("line.separator") + System.getProperty("line.separator") +
-                        "[" + httpRequest + "]" + System.getProperty("line.separator") + System.getProperty("line.separator") +
+                        "[" + matchContext.getHttpRequest() + "]" + System.getProperty("line.separator") + System.getProperty("line.separator") +
                         "because:" + System.getProperty("line.separator") + System.getProperty("line.separator") +
-                        "methodMatches = " + methodMatches + "" + System.getProperty("line.separator") +
-                        "urlMatches = " + urlMatches + "" + System.getProperty("line.separator") +
-                        "pathMatches = " + pathMatches + "" + System.getProperty("line.separator") +
-                        "queryStringParametersMatch = " + queryStringParametersMatches + "" + System.getProperty("line.separator") +
-                        "bodyMatches = " + bodyMatches + "" + System.getProperty("line.separator") +
-                        "headersMatch = " + headersMatch + "" + System.getProperty("line.separator") +
-                        "cookiesMatch = " + cookiesMatch);
+                        "methodMatches = " + methodMatches(matchContext) + "" + System.getProperty("line.separator") +
+                        "urlMatches = " + urlMatches(matchContext) + "" + System.getProperty("line.separator") +
+                        "pathMatches = " + pathMatches(matchContext) + "" + System.getProperty("line.separator") +
+                        "queryStringParametersMatch = " + queryStringParametersMatches(matchContext) + "" + System.getProperty("line.separator") +
+                        "bodyMatches = " + bodyMatches(matchContext) + "" + System.getProperty("line.separator") +
+                        "headersMatch = " + headersMatch(matchContext) + "" + System.getProperty("line.separator") +
+                        "cookiesMatch = " + cookiesMatch(matchContext));
             }
             return result;
         } else {
@@ -134,6 +133,57 @@ public class HttpRequestMatcher extends EqualsHashCodeToString implements Matche
         }
     }
 
+    private boolean methodMatches(MatchContext matchContext) {
+        return matches(methodMatcher, matchContext.getHttpRequest().getMethod());
+    }
+
+    private boolean urlMatches(MatchContext matchContext) {
+        return matches(urlMatcher, matchContext.getHttpRequest().getURL());
+    }
+
+    private boolean pathMatches(MatchContext matchContext) {
+        return matches(pathMatcher, matchContext.getHttpRequest().getPath());
+    }
+
+    private boolean queryStringParametersMatches(MatchContext matchContext) {
+        return queryStringParameterMatcher == null || queryStringParameterMatcher.matches(matchContext.getQueryStringParameters());
+    }
+
+    private boolean bodyMatches(MatchContext matchContext) {
+        BodyMatchResultCache bodyMatchResultCache = matchContext.getBodyMatchResultCache();
+        // exact and binary matchers are a simple comparison so are no slower than calculating the digest
+        if (bodyMatcher == null || bodyMatcher instanceof ExactStringMatcher || bodyMatcher instanceof BinaryMatcher
+                || bodyMatchResultCache == null || !bodyMatchResultCache.isEnabled()) {
+            return evaluateBodyMatcher(matchContext);
+        }
+        Boolean result = bodyMatchResultCache.get(bodyMatcher, matchContext.getBodyDigest());
+        if (result == null) {
+            result = evaluateBodyMatcher(matchContext);
+            bodyMatchResultCache.put(bodyMatcher, matchContext.getBodyDigest(), result);
+        }
+        return result;
+    }
+
+    private boolean evaluateBodyMatcher(MatchContext matchContext) {
+        if (bodyMatcher instanceof BinaryMatcher) {
+            return matches(bodyMatcher, matchContext.getHttpRequest().getRawBodyBytes());
+        } else if (bodyMatcher instanceof XPathStringMatcher) {
+            return ((XPathStringMatcher) bodyMatcher).matchesBody(matchContext);
+        } else if (bodyMatcher instanceof JsonStringMatcher) {
+            return ((JsonStringMatcher) bodyMatcher).matchesBody(matchContext);
+        } else {
+            return matches(bodyMatcher, matchContext.getBodyAsString());
+        }
+    }
+
+    private boolean headersMatch(MatchContext matchContext) {
+        return headerMatcher == null || headerMatcher.matches(matchContext.getHeaders());
+    }
+
+    private boolean cookiesMatch(MatchContext matchContext) {
+        return cookieMatcher == null || cookieMatcher.matches(matchContext.getCookies());
+    }
+
     private <T> boolean matches(Matcher<T> matcher, T t) {
         boolean result = false;
 
@@ -1,38 +1,124 @@
 package org.mockserver.matchers;
 
-import org.skyscreamer.jsonassert.JSONCompareMode;
-import org.skyscreamer.jsonassert.JSONCompareResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import static org.skyscreamer.jsonassert.JSONCompare.compareJSON;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
+ * Lenient json matching, the same as JSONAssert's LENIENT mode, the matched json may contain fields that are not
+ * expected and array items may be in any order but arrays must be the same length
+ *
  * @author jamesdbloom
  */
 public class JsonStringMatcher extends BodyMatcher<String> implements Matcher<String> {
+    private static Logger logger = LoggerFactory.getLogger(JsonStringMatcher.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
     private final String matcher;
+    // parsed once when the expectation is created instead of for every request
+    private final JsonNode expected;
 
     public JsonStringMatcher(String matcher) {
         this.matcher = matcher;
+        this.expected = parse(matcher);
     }
 
-    public boolean matches(String matched) {
-        boolean result = false;
+    /**
+     * Parses a json object or array without throwing exceptions for strings that are obviously not json
+     *
+     * @return the parsed json or null if the string is not a json object or array
+     */
+    static JsonNode parse(String json) {
+        if (json != null) {
+            for (int i = 0; i < json.length(); i++) {
+                char character = json.charAt(i);
+                if (character == '{' || character == '[') {
+                    try {
+                        return objectMapper.readTree(json);
+                    } catch (Exception e) {
+                        logger.trace("Failed to parse JSON [{}] because {}", json, e.getMessage());
+                        return null;
+                    }
+                } else if (!Character.isWhitespace(character)) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
 
-        JSONCompareResult jsonCompareResult = null;
-        try {
-            jsonCompareResult = compareJSON(matcher, matched, JSONCompareMode.LENIENT);
+    static boolean lenientMatches(JsonNode expected, JsonNode actual) {
+        if (expected == null || actual == null) {
+            return false;
+        } else if (expected.isObject()) {
+            return actual.isObject() && objectMatches(expected, actual);
+        } else if (expected.isArray()) {
+            return actual.isArray() && arrayMatches(expected, actual);
+        } else if (expected.isNumber()) {
+            return actual.isNumber() && expected.doubleValue() == actual.doubleValue();
+        } else {
+            return expected.equals(actual);
+        }
+    }
 
-            if (jsonCompareResult.passed()) {
-                result = true;
+    private static boolean objectMatches(JsonNode expected, JsonNode actual) {
+        Iterator<Map.Entry<String, JsonNode>> expectedFields = expected.fields();
+        while (expectedFields.hasNext()) {
+            Map.Entry<String, JsonNode> expectedField = expectedFields.next();
+            if (!lenientMatches(expectedField.getValue(), actual.get(expectedField.getKey()))) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            if (!result) {
-                logger.trace("Failed to perform JSON match [{}] with [{}] because {}", matched, this.matcher, jsonCompareResult.getMessage());
+    private static boolean arrayMatches(JsonNode expected, JsonNode actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        // each expected item must match a different actual item in any order
+        boolean[] matched = new boolean[actual.size()];
+        for (JsonNode expectedItem : expected) {
+            boolean found = false;
+            for (int i = 0; i < actual.size() && !found; i++) {
+                if (!matched[i] && lenientMatches(expectedItem, actual.get(i))) {
+                    matched[i] = true;
+                    found = true;
+                }
+            }
+            if (!found) {
+                return false;
             }
-        } catch (Exception e) {
-            logger.trace("Failed to perform JSON match [{}] with [{}] because {}", matched, this.matcher, e.getMessage());
+        }
+        return true;
+    }
+
+    public boolean matches(String matched) {
+        return matchesParsed(matched, parse(matched));
+    }
+
+    /**
+     * Matches the body of the request, the body is parsed at most once for all the json expectations it is matched against
+     */
+    public boolean matchesBody(MatchContext matchContext) {
+        return matchesParsed(matchContext.getBodyAsString(), matchContext.getBodyAsJson());
+    }
+
+    private boolean matchesParsed(String matched, JsonNode actual) {
+        boolean result = lenientMatches(expected, actual);
+
+        if (!result) {
+            logger.trace("Failed to perform JSON match [{}] with [{}]", matched, this.matcher);
         }
 
         return result;
     }
+
+    @Override
+    public String[] fieldsExcludedFromEqualsAndHashCode() {
+        return new String[]{"logger", "expected"};
+    }
 }
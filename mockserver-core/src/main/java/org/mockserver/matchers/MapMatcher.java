@@ -17,12 +17,16 @@ public class MapMatcher extends EqualsHashCodeToString implements Matcher<List<K
     }
 
     public boolean matches(List<KeyToMultiValue> values) {
+        return matches(KeyToMultiValue.toMultiMap(values));
+    }
+
+    public boolean matches(CaseInsensitiveRegexMultiMap values) {
         boolean result = false;
 
-        if (KeyToMultiValue.toMultiMap(values).containsAll(multiMap)) {
+        if (values.containsAll(multiMap)) {
             result = true;
         } else {
-            logger.trace("Map [{}] is not a subset of [{}]", this.multiMap, KeyToMultiValue.toMultiMap(values));
+            logger.trace("Map [{}] is not a subset of [{}]", this.multiMap, values);
         }
 
         return result;
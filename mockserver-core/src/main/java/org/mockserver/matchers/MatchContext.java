@@ -0,0 +1,110 @@
+package org.mockserver.matchers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.mockserver.collections.CaseInsensitiveRegexMultiMap;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.KeyToMultiValue;
+import org.w3c.dom.Document;
+
+/**
+ * Parsed view of a single incoming request that is shared by every expectation it is matched against,
+ * each part is only parsed the first time an expectation needs it
+ *
+ * Not thread safe, a context should only be used for one request on one thread
+ *
+ * @author jamesdbloom
+ */
+public class MatchContext {
+
+    private final HttpRequest httpRequest;
+    private final BodyMatchResultCache bodyMatchResultCache;
+    private CaseInsensitiveRegexMultiMap queryStringParameters;
+    private CaseInsensitiveRegexMultiMap headers;
+    private CaseInsensitiveRegexMultiMap cookies;
+    private String body;
+    private HashCode bodyDigest;
+    private Document bodyAsXmlDocument;
+    private boolean bodyParsedAsXml;
+    private JsonNode bodyAsJson;
+    private boolean bodyParsedAsJson;
+
+    public MatchContext(HttpRequest httpRequest) {
+        this(httpRequest, null);
+    }
+
+    public MatchContext(HttpRequest httpRequest, BodyMatchResultCache bodyMatchResultCache) {
+        this.httpRequest = httpRequest;
+        this.bodyMatchResultCache = bodyMatchResultCache;
+    }
+
+    public HttpRequest getHttpRequest() {
+        return httpRequest;
+    }
+
+    public CaseInsensitiveRegexMultiMap getQueryStringParameters() {
+        if (queryStringParameters == null) {
+            queryStringParameters = KeyToMultiValue.toMultiMap(httpRequest.getQueryStringParameters());
+        }
+        return queryStringParameters;
+    }
+
+    public CaseInsensitiveRegexMultiMap getHeaders() {
+        if (headers == null) {
+            headers = KeyToMultiValue.toMultiMap(httpRequest.getHeaders());
+        }
+        return headers;
+    }
+
+    public CaseInsensitiveRegexMultiMap getCookies() {
+        if (cookies == null) {
+            cookies = KeyToMultiValue.toMultiMap(httpRequest.getCookies());
+        }
+        return cookies;
+    }
+
+    public String getBodyAsString() {
+        if (body == null) {
+            body = (httpRequest.getBody() != null ? httpRequest.getBody().toString() : "");
+        }
+        return body;
+    }
+
+    public HashCode getBodyDigest() {
+        if (bodyDigest == null) {
+            bodyDigest = Hashing.sha256().hashString(getBodyAsString(), Charsets.UTF_8);
+        }
+        return bodyDigest;
+    }
+
+    /**
+     * The cache of body match results shared by requests matched by the same MockServerMatcher, or null if results are not cached
+     */
+    public BodyMatchResultCache getBodyMatchResultCache() {
+        return bodyMatchResultCache;
+    }
+
+    /**
+     * The body parsed as xml, or null if the body is not well formed xml, the returned document must not be modified
+     */
+    public Document getBodyAsXmlDocument() {
+        if (!bodyParsedAsXml) {
+            bodyAsXmlDocument = XPathStringMatcher.parse(getBodyAsString());
+            bodyParsedAsXml = true;
+        }
+        return bodyAsXmlDocument;
+    }
+
+    /**
+     * The body parsed as json, or null if the body is not a json object or array, the returned node must not be modified
+     */
+    public JsonNode getBodyAsJson() {
+        if (!bodyParsedAsJson) {
+            bodyAsJson = JsonStringMatcher.parse(getBodyAsString());
+            bodyParsedAsJson = true;
+        }
+        return bodyAsJson;
+    }
+}
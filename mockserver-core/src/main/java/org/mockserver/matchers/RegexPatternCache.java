@@ -0,0 +1,88 @@
+package org.mockserver.matchers;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bounded, thread safe, least recently used cache of compiled regex patterns, strings that are not valid
+ * regex are cached as absent so they are not re-compiled (and re-thrown) for every comparison
+ *
+ * @author jamesdbloom
+ */
+public class RegexPatternCache {
+    private static Logger logger = LoggerFactory.getLogger(RegexPatternCache.class);
+    // avoids holding on to large values, such as request bodies, that are only occasionally compared as a regex
+    static final int MAXIMUM_CACHED_REGEX_LENGTH = 1024;
+    private final LoadingCache<String, Optional<Pattern>> caseSensitivePatterns;
+    private final LoadingCache<String, Optional<Pattern>> caseInsensitivePatterns;
+
+    public RegexPatternCache(int maximumSize) {
+        caseSensitivePatterns = createCache(maximumSize, false);
+        caseInsensitivePatterns = createCache(maximumSize, true);
+    }
+
+    private static LoadingCache<String, Optional<Pattern>> createCache(int maximumSize, final boolean ignoreCase) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(new CacheLoader<String, Optional<Pattern>>() {
+                    public Optional<Pattern> load(String regex) {
+                        return Optional.fromNullable(compile(regex, ignoreCase));
+                    }
+                });
+    }
+
+    /**
+     * Compiles the regex without caching it
+     *
+     * @param regex      the regex to compile
+     * @param ignoreCase true to compile with Pattern.CASE_INSENSITIVE
+     * @return the compiled pattern or null if the string is not a valid regex
+     */
+    public static Pattern compile(String regex, boolean ignoreCase) {
+        try {
+            return Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+        } catch (PatternSyntaxException pse) {
+            logger.trace("Error while compiling regex [" + regex + "] " + pse.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the compiled pattern for the regex, compiling it only if not already cached
+     *
+     * @param regex      the regex to compile
+     * @param ignoreCase true to compile with Pattern.CASE_INSENSITIVE
+     * @return the compiled pattern or null if the string is not a valid regex
+     */
+    public Pattern get(String regex, boolean ignoreCase) {
+        if (regex.length() > MAXIMUM_CACHED_REGEX_LENGTH) {
+            return compile(regex, ignoreCase);
+        }
+        return (ignoreCase ? caseInsensitivePatterns : caseSensitivePatterns).getUnchecked(regex).orNull();
+    }
+
+    public long hitCount() {
+        return caseSensitivePatterns.stats().hitCount() + caseInsensitivePatterns.stats().hitCount();
+    }
+
+    public long missCount() {
+        return caseSensitivePatterns.stats().missCount() + caseInsensitivePatterns.stats().missCount();
+    }
+
+    public long size() {
+        return caseSensitivePatterns.size() + caseInsensitivePatterns.size();
+    }
+
+    public void clear() {
+        caseSensitivePatterns.invalidateAll();
+        caseInsensitivePatterns.invalidateAll();
+    }
+}
@@ -1,20 +1,96 @@
 package org.mockserver.matchers;
 
 import com.google.common.base.Strings;
+import org.mockserver.configuration.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.PatternSyntaxException;
+import java.util.regex.Pattern;
 
 /**
  * @author jamesdbloom
  */
 public class RegexStringMatcher extends BodyMatcher<String> implements Matcher<String> {
     private static Logger logger = LoggerFactory.getLogger(RegexStringMatcher.class);
+    private static final String REGEX_METACHARACTERS = "\\[](){}.*+?^$|";
+    private static final String OPTIONAL_QUANTIFIERS = "?*{";
+    private static final String ANY_SUFFIX = ".*";
+    private static final RegexPatternCache patternCache = new RegexPatternCache(SystemProperties.regexPatternCacheSize());
     private final String matcher;
+    private final boolean ignoreCase;
+    private final MatchType matchType;
+    private final String literal;
+    private final Pattern matcherPattern;
 
     public RegexStringMatcher(String matcher) {
+        this(matcher, false);
+    }
+
+    public RegexStringMatcher(String matcher, boolean ignoreCase) {
         this.matcher = matcher;
+        this.ignoreCase = ignoreCase;
+        // classified and compiled once here rather than for every request matched
+        if (Strings.isNullOrEmpty(matcher)) {
+            this.matchType = MatchType.ANY;
+            this.literal = null;
+            this.matcherPattern = null;
+        } else if (isLiteral(matcher)) {
+            this.matchType = (ignoreCase ? MatchType.CASE_INSENSITIVE_EXACT : MatchType.EXACT);
+            this.literal = matcher;
+            this.matcherPattern = null;
+        } else if (matcher.endsWith(ANY_SUFFIX) && isLiteral(matcher.substring(0, matcher.length() - ANY_SUFFIX.length()))) {
+            this.matchType = MatchType.PREFIX;
+            this.literal = matcher.substring(0, matcher.length() - ANY_SUFFIX.length());
+            this.matcherPattern = null;
+        } else {
+            this.matchType = MatchType.REGEX;
+            this.literal = null;
+            this.matcherPattern = RegexPatternCache.compile(matcher, ignoreCase);
+        }
+    }
+
+    /**
+     * The cache of compiled patterns used when both strings are only known at match time,
+     * such as the request side of a comparison which may also be treated as a regex
+     */
+    public static RegexPatternCache patternCache() {
+        return patternCache;
+    }
+
+    /**
+     * Returns true if the value contains no regex metacharacters, so matching it as a regex is the same as an exact string comparison
+     */
+    public static boolean isLiteral(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (REGEX_METACHARACTERS.indexOf(value.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the longest prefix that every string matched by the regex must start with, for example
+     * "/some/path.*" returns "/some/path" and "/some/paths?" returns "/some/path"
+     */
+    public static String literalPrefix(String regex) {
+        if (regex == null || regex.indexOf('|') != -1) {
+            return "";
+        }
+        for (int i = 0; i < regex.length(); i++) {
+            char character = regex.charAt(i);
+            if (REGEX_METACHARACTERS.indexOf(character) != -1) {
+                if (OPTIONAL_QUANTIFIERS.indexOf(character) != -1 && i > 0) {
+                    // quantifier makes the preceding character optional
+                    return regex.substring(0, i - 1);
+                }
+                return regex.substring(0, i);
+            }
+        }
+        return regex;
     }
 
     public static boolean matches(String matcher, String matched, boolean ignoreCase) {
@@ -24,50 +100,67 @@ public class RegexStringMatcher extends BodyMatcher<String> implements Matcher<S
             result = true;
         } else if (matched != null) {
             // match as regex - matcher -> matched
-            try {
-                if (matched.matches(matcher)) {
-                    result = true;
-                }
-            } catch (PatternSyntaxException pse) {
-                logger.trace("Error while matching regex [" + matcher + "] for string [" + matched + "] " + pse.getMessage());
+            if (isLiteral(matcher)) {
+                // case insensitive comparison is mainly to improve matching in web containers like Tomcat that convert header names to lower case
+                result = (ignoreCase ? matcher.equalsIgnoreCase(matched) : matcher.equals(matched));
+            } else {
+                Pattern matcherPattern = patternCache.get(matcher, ignoreCase);
+                result = matcherPattern != null && matcherPattern.matcher(matched).matches();
             }
             // match as regex - matched -> matcher
-            try {
-                if (matcher.matches(matched)) {
-                    result = true;
-                }
-            } catch (PatternSyntaxException pse) {
-                logger.trace("Error while matching regex [" + matched + "] for string [" + matcher + "] " + pse.getMessage());
-            }
-            // case insensitive comparison is mainly to improve matching in web containers like Tomcat that convert header names to lower case
-            if (ignoreCase) {
-                // match as regex - matcher -> matched
-                try {
-                    if (matched.toLowerCase().matches(matcher.toLowerCase())) {
-                        result = true;
-                    }
-                } catch (PatternSyntaxException pse) {
-                    logger.trace("Error while matching regex [" + matcher.toLowerCase() + "] for string [" + matched.toLowerCase() + "] " + pse.getMessage());
-                }
-                // match as regex - matched -> matcher
-                try {
-                    if (matcher.toLowerCase().matches(matched.toLowerCase())) {
-                        result = true;
-                    }
-                } catch (PatternSyntaxException pse) {
-                    logger.trace("Error while matching regex [" + matched.toLowerCase() + "] for string [" + matcher.toLowerCase() + "] " + pse.getMessage());
-                }
+            if (!result) {
+                result = matchesAsRegex(matched, matcher, ignoreCase);
             }
         }
 
         return result;
     }
 
+    private static boolean matchesAsRegex(String regex, String value, boolean ignoreCase) {
+        // a literal regex only matches an equal string which has already been compared
+        if (isLiteral(regex)) {
+            return false;
+        }
+        Pattern pattern = patternCache.get(regex, ignoreCase);
+        return pattern != null && pattern.matcher(value).matches();
+    }
+
+    private static boolean containsLineTerminator(String value, int fromIndex) {
+        for (int i = fromIndex; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '\n' || character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean matches(String matched) {
         boolean result = false;
 
-        if (matches(matcher, matched, false)) {
+        if (matchType == MatchType.ANY) {
             result = true;
+        } else if (matched != null) {
+            // match as regex - matcher -> matched
+            switch (matchType) {
+                case EXACT:
+                    result = literal.equals(matched);
+                    break;
+                case CASE_INSENSITIVE_EXACT:
+                    result = literal.equalsIgnoreCase(matched);
+                    break;
+                case PREFIX:
+                    // "." does not match line terminators
+                    result = matched.regionMatches(ignoreCase, 0, literal, 0, literal.length()) && !containsLineTerminator(matched, literal.length());
+                    break;
+                case REGEX:
+                    result = matcherPattern != null && matcherPattern.matcher(matched).matches();
+                    break;
+            }
+            // match as regex - matched -> matcher
+            if (!result) {
+                result = matchesAsRegex(matched, matcher, ignoreCase);
+            }
         }
 
         if (!result) {
@@ -75,4 +168,17 @@ public class RegexStringMatcher extends BodyMatcher<String> implements Matcher<S
         }
         return result;
     }
+
+    @Override
+    public String[] fieldsExcludedFromEqualsAndHashCode() {
+        return new String[]{"logger", "matchType", "literal", "matcherPattern"};
+    }
+
+    private enum MatchType {
+        ANY,
+        EXACT,
+        CASE_INSENSITIVE_EXACT,
+        PREFIX,
+        REGEX
+    }
 }
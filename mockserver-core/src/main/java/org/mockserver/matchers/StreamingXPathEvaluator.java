@@ -0,0 +1,83 @@
+package org.mockserver.matchers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates simple absolute location paths, such as "/Envelope/Body/getQuote", as an existence check by streaming
+ * the xml with StAX instead of building a DOM, any other xpath expression is not supported
+ *
+ * Element names are compared without namespaces, the same as the non namespace aware DOM used by XPathStringMatcher,
+ * the whole document is still read so xml that is not well formed does not match
+ *
+ * @author jamesdbloom
+ */
+class StreamingXPathEvaluator {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingXPathEvaluator.class);
+    private static final Pattern SIMPLE_LOCATION_PATH = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_.\\-]*)+");
+    private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final String[] steps;
+
+    StreamingXPathEvaluator(String xpath) {
+        if (!isSupported(xpath)) {
+            throw new IllegalArgumentException("Only simple absolute location paths are supported not [" + xpath + "]");
+        }
+        this.steps = xpath.substring(1).split("/");
+    }
+
+    static boolean isSupported(String xpath) {
+        return xpath != null && SIMPLE_LOCATION_PATH.matcher(xpath).matches();
+    }
+
+    boolean exists(String xml) {
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+            boolean found = false;
+            // number of leading steps matched by the current element and its ancestors
+            int matchedSteps = 0;
+            int depth = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (matchedSteps == depth && matchedSteps < steps.length && isStep(reader, steps[matchedSteps])) {
+                            matchedSteps++;
+                            found = found || matchedSteps == steps.length;
+                        }
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (matchedSteps == depth) {
+                            matchedSteps--;
+                        }
+                        depth--;
+                        break;
+                }
+            }
+            return found;
+        } catch (XMLStreamException xse) {
+            logger.trace("Error while streaming xml [" + xml + "] assuming no match - " + xse.getMessage());
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException xse) {
+                    logger.trace("Error while closing xml stream reader - " + xse.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean isStep(XMLStreamReader reader, String step) {
+        String prefix = reader.getPrefix();
+        return (prefix == null || prefix.isEmpty()) && step.equals(reader.getLocalName());
+    }
+}
@@ -2,13 +2,16 @@ package org.mockserver.matchers;
 
 import org.mockserver.model.EqualsHashCodeToString;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * @author jamesdbloom
  */
 public class Times extends EqualsHashCodeToString {
 
-    private int remainingTimes;
-    private boolean unlimited;
+    private static final AtomicIntegerFieldUpdater<Times> REMAINING_TIMES_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Times.class, "remainingTimes");
+    private volatile int remainingTimes;
+    private volatile boolean unlimited;
 
     private Times(int remainingTimes, boolean unlimited) {
         this.remainingTimes = remainingTimes;
@@ -46,12 +49,32 @@ public class Times extends EqualsHashCodeToString {
 
     public Times decrement() {
         if (!unlimited) {
-            remainingTimes--;
+            REMAINING_TIMES_UPDATER.decrementAndGet(this);
         }
         return this;
     }
 
-    public Times setNotUnlimitedResponses() {
+    /**
+     * Atomically claims one of the remaining times, so that concurrent matches
+     * can never use an expectation more often than it was registered for
+     *
+     * @return true if unlimited or a remaining time was claimed otherwise false
+     */
+    public boolean tryDecrement() {
+        while (!unlimited) {
+            int current = remainingTimes;
+            if (current <= 0) {
+                logger.trace("Remaining count is 0");
+                return false;
+            }
+            if (REMAINING_TIMES_UPDATER.compareAndSet(this, current, current - 1)) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    public synchronized Times setNotUnlimitedResponses() {
         if (unlimited) {
             remainingTimes = 1;
             unlimited = false;
@@ -1,8 +1,10 @@
 package org.mockserver.matchers;
 
 import org.apache.commons.lang3.StringUtils;
+import org.mockserver.configuration.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -10,28 +12,111 @@ import org.xml.sax.SAXParseException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.*;
 import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author jamesdbloom
  */
 public class XPathStringMatcher extends BodyMatcher<String> implements Matcher<String> {
     private static Logger logger = LoggerFactory.getLogger(XPathStringMatcher.class);
+    private static final ErrorHandler errorHandler = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) throws SAXException {
+            logger.debug("SAXParseException while parsing xml", exception);
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            logger.debug("SAXParseException while parsing xml", exception);
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            logger.debug("SAXParseException while parsing xml", exception);
+        }
+    };
+    // neither document builders nor xpath objects are thread safe, so each thread reuses its own
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+                documentBuilder.setErrorHandler(errorHandler);
+                return documentBuilder;
+            } catch (ParserConfigurationException pce) {
+                throw new RuntimeException("Exception creating DocumentBuilder", pce);
+            }
+        }
+    };
+    private static final ThreadLocal<XPath> xpath = new ThreadLocal<XPath>() {
+        @Override
+        protected XPath initialValue() {
+            return XPathFactory.newInstance().newXPath();
+        }
+    };
+    // compiled expressions are not thread safe either, each thread keeps the most recently used ones shared by every matcher
+    private static final int MAX_COMPILED_EXPRESSIONS_PER_THREAD = 256;
+    private static final ThreadLocal<Map<String, XPathExpression>> compiledExpressions = new ThreadLocal<Map<String, XPathExpression>>() {
+        @Override
+        protected Map<String, XPathExpression> initialValue() {
+            return new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                    return size() > MAX_COMPILED_EXPRESSIONS_PER_THREAD;
+                }
+            };
+        }
+    };
     private final String matcher;
     private XPathExpression xpathExpression = null;
+    private StreamingXPathEvaluator streamingXPathEvaluator = null;
 
     public XPathStringMatcher(String matcher) {
         this.matcher = matcher;
         if (StringUtils.isNotEmpty(matcher)) {
             try {
-                xpathExpression = XPathFactory.newInstance().newXPath().compile(matcher);
+                xpathExpression = compile(matcher);
             } catch (XPathExpressionException e) {
                 logger.trace("Error while creating xpath expression for [" + matcher + "] assuming matcher not xpath - " + e.getMessage(), e);
             }
+            if (xpathExpression != null && SystemProperties.xpathStreamingEvaluation() && StreamingXPathEvaluator.isSupported(matcher)) {
+                streamingXPathEvaluator = new StreamingXPathEvaluator(matcher);
+            }
+        }
+    }
+
+    /**
+     * Compiles the expression or returns the one already compiled by the current thread
+     */
+    private static XPathExpression compile(String expression) throws XPathExpressionException {
+        Map<String, XPathExpression> threadCompiledExpressions = compiledExpressions.get();
+        XPathExpression compiledExpression = threadCompiledExpressions.get(expression);
+        if (compiledExpression == null) {
+            compiledExpression = xpath.get().compile(expression);
+            threadCompiledExpressions.put(expression, compiledExpression);
+        }
+        return compiledExpression;
+    }
+
+    /**
+     * Parses the xml using a document builder reused by the current thread
+     *
+     * @return the parsed document or null if the string is not well formed xml
+     */
+    static Document parse(String xml) {
+        DocumentBuilder builder = documentBuilder.get();
+        try {
+            return builder.parse(new InputSource(new StringReader(xml)));
+        } catch (Exception e) {
+            logger.trace("Error while parsing xml [" + xml + "] - " + e.getMessage());
+            return null;
+        } finally {
+            builder.reset();
+            builder.setErrorHandler(errorHandler);
         }
     }
 
@@ -42,37 +127,49 @@ public class XPathStringMatcher extends BodyMatcher<String> implements Matcher<S
             return true;
         } else if (matched != null) {
             // match as xpath - matcher -> matched
-            try {
-                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-                documentBuilder.setErrorHandler(new ErrorHandler() {
-                    @Override
-                    public void warning(SAXParseException exception) throws SAXException {
-                        logger.debug("SAXParseException while performing match between [" + matcher + "] and [" + matched + "]", exception);
-                    }
+            if (streamingXPathEvaluator != null) {
+                return streamingXPathEvaluator.exists(matched);
+            }
+            Document document = parse(matched);
+            if (document != null && evaluate(document)) {
+                return true;
+            }
+        }
 
-                    @Override
-                    public void error(SAXParseException exception) throws SAXException {
-                        logger.debug("SAXParseException while performing match between [" + matcher + "] and [" + matched + "]", exception);
-                    }
+        logger.trace("Failed to match [{}] with [{}]", matched, this.matcher);
+        return false;
+    }
 
-                    @Override
-                    public void fatalError(SAXParseException exception) throws SAXException {
-                        logger.debug("SAXParseException while performing match between [" + matcher + "] and [" + matched + "]", exception);
-                    }
-                });
-                return (Boolean) xpathExpression.evaluate(documentBuilder.parse(new InputSource(new StringReader(matched))), XPathConstants.BOOLEAN);
-            } catch (Exception e) {
-                logger.trace("Error while matching xpath [" + matcher + "] against string [" + matched + "] assuming no match - " + e.getMessage());
+    /**
+     * Matches the body of the request, the body is parsed at most once for all the xpath expectations it is matched against
+     */
+    public boolean matchesBody(MatchContext matchContext) {
+        if (xpathExpression == null || streamingXPathEvaluator != null) {
+            return matches(matchContext.getBodyAsString());
+        } else if (matcher.equals(matchContext.getBodyAsString())) {
+            return true;
+        } else {
+            Document document = matchContext.getBodyAsXmlDocument();
+            if (document != null && evaluate(document)) {
+                return true;
             }
         }
 
-        logger.trace("Failed to match [{}] with [{}]", matched, this.matcher);
+        logger.trace("Failed to match [{}] with [{}]", matchContext.getBodyAsString(), this.matcher);
         return false;
     }
 
+    private boolean evaluate(Document document) {
+        try {
+            return (Boolean) compile(matcher).evaluate(document, XPathConstants.BOOLEAN);
+        } catch (Exception e) {
+            logger.trace("Error while matching xpath [" + matcher + "] against document assuming no match - " + e.getMessage());
+            return false;
+        }
+    }
+
     @Override
     public String[] fieldsExcludedFromEqualsAndHashCode() {
-        return new String[]{"logger", "xpathExpression"};
+        return new String[]{"logger", "xpathExpression", "streamingXPathEvaluator"};
     }
 }
@@ -1,6 +1,7 @@
 package org.mockserver.mock;
 
 import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.matchers.MatchContext;
 import org.mockserver.matchers.MatcherBuilder;
 import org.mockserver.matchers.Times;
 import org.mockserver.model.*;
@@ -75,14 +76,20 @@ public class Expectation extends EqualsHashCodeToString {
     }
 
     public boolean matches(HttpRequest httpRequest) {
+        return matchesContext(httpRequest != null ? new MatchContext(httpRequest) : null);
+    }
+
+    public boolean matchesContext(MatchContext matchContext) {
+        HttpRequest httpRequest = (matchContext != null ? matchContext.getHttpRequest() : null);
         logger.trace("\nMatching expectation: \n{} \nwith incoming http: \n{}" + System.getProperty("line.separator"), this.httpRequest, httpRequest);
         boolean matches =
                 (times == null || times.greaterThenZero()) &&
                         (
-                                (httpRequest == null && this.httpRequest == null) || this.httpRequestMatcher.matches(httpRequest)
+                                (httpRequest == null && this.httpRequest == null) || this.httpRequestMatcher.matchesContext(matchContext)
                         );
         if (matches && times != null) {
-            times.decrement();
+            // another thread may have used the last remaining time since the check above
+            matches = times.tryDecrement();
         }
         return matches;
     }
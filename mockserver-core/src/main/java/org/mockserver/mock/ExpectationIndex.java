@@ -0,0 +1,132 @@
+package org.mockserver.mock;
+
+import com.google.common.base.Strings;
+import org.mockserver.model.HttpRequest;
+
+import java.util.*;
+
+import static org.mockserver.matchers.RegexStringMatcher.isLiteral;
+import static org.mockserver.matchers.RegexStringMatcher.literalPrefix;
+
+/**
+ * Immutable index of expectations by HTTP method and by the literal (non-regex) prefix of their path,
+ * used to avoid running the full request matcher against expectations that cannot possibly match.
+ *
+ * Candidates are always returned in registration order so the first registered matching expectation still wins.
+ *
+ * @author jamesdbloom
+ */
+class ExpectationIndex {
+
+    private final Expectation[] expectations;
+    private final Map<String, PathIndex> pathIndexByMethod = new HashMap<String, PathIndex>();
+    private final PathIndex pathIndexForAnyMethod = new PathIndex();
+
+    ExpectationIndex(List<Expectation> expectations) {
+        this.expectations = expectations.toArray(new Expectation[expectations.size()]);
+        for (int position = 0; position < this.expectations.length; position++) {
+            HttpRequest httpRequest = this.expectations[position].getHttpRequest();
+            String method = (httpRequest != null ? httpRequest.getMethod() : null);
+            String path = (httpRequest != null ? httpRequest.getPath() : null);
+            PathIndex pathIndex = pathIndexForAnyMethod;
+            if (!Strings.isNullOrEmpty(method) && isLiteral(method)) {
+                pathIndex = pathIndexByMethod.get(method);
+                if (pathIndex == null) {
+                    pathIndex = new PathIndex();
+                    pathIndexByMethod.put(method, pathIndex);
+                }
+            }
+            pathIndex.add(path, position);
+        }
+    }
+
+    List<Expectation> candidates(HttpRequest httpRequest) {
+        if (httpRequest == null) {
+            return Arrays.asList(expectations);
+        }
+        BitSet candidates = new BitSet(expectations.length);
+        String method = httpRequest.getMethod();
+        if (!Strings.isNullOrEmpty(method) && isLiteral(method)) {
+            pathIndexForAnyMethod.addCandidates(httpRequest.getPath(), candidates);
+            PathIndex pathIndex = pathIndexByMethod.get(method);
+            if (pathIndex != null) {
+                pathIndex.addCandidates(httpRequest.getPath(), candidates);
+            }
+        } else {
+            // a method which is empty or could itself be a regex may match expectations with any method
+            pathIndexForAnyMethod.addCandidates(httpRequest.getPath(), candidates);
+            for (PathIndex pathIndex : pathIndexByMethod.values()) {
+                pathIndex.addCandidates(httpRequest.getPath(), candidates);
+            }
+        }
+        List<Expectation> result = new ArrayList<Expectation>(candidates.cardinality());
+        for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+            result.add(expectations[position]);
+        }
+        return result;
+    }
+
+    /**
+     * Trie of expectation positions keyed on the literal prefix of each expectation's path, plus
+     * a sorted view of the raw paths for requests whose own path could be treated as a regex
+     */
+    private static class PathIndex {
+        private final TrieNode root = new TrieNode();
+        private final NavigableMap<String, List<Integer>> positionsByPath = new TreeMap<String, List<Integer>>();
+
+        void add(String path, int position) {
+            String normalisedPath = (path != null ? path : "");
+            TrieNode node = root;
+            for (char character : literalPrefix(normalisedPath).toCharArray()) {
+                node = node.child(character);
+            }
+            node.positions.add(position);
+            List<Integer> positions = positionsByPath.get(normalisedPath);
+            if (positions == null) {
+                positions = new ArrayList<Integer>();
+                positionsByPath.put(normalisedPath, positions);
+            }
+            positions.add(position);
+        }
+
+        void addCandidates(String path, BitSet candidates) {
+            String normalisedPath = (path != null ? path : "");
+            // expectation path as regex -> request path, so every literal prefix along the request path
+            TrieNode node = root;
+            addAll(node.positions, candidates);
+            for (int i = 0; i < normalisedPath.length() && node != null; i++) {
+                node = node.children.get(normalisedPath.charAt(i));
+                if (node != null) {
+                    addAll(node.positions, candidates);
+                }
+            }
+            // request path as regex -> expectation path, so every expectation path starting with the request's literal prefix
+            if (!isLiteral(normalisedPath)) {
+                String prefix = literalPrefix(normalisedPath);
+                for (List<Integer> positions : positionsByPath.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                    addAll(positions, candidates);
+                }
+            }
+        }
+
+        private void addAll(List<Integer> positions, BitSet candidates) {
+            for (Integer position : positions) {
+                candidates.set(position);
+            }
+        }
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<Character, TrieNode>();
+        private final List<Integer> positions = new ArrayList<Integer>();
+
+        TrieNode child(char character) {
+            TrieNode child = children.get(character);
+            if (child == null) {
+                child = new TrieNode();
+                children.put(character, child);
+            }
+            return child;
+        }
+    }
+}
@@ -5,7 +5,10 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import org.mockserver.client.serialization.Base64Converter;
 import org.mockserver.client.serialization.ExpectationSerializer;
+import org.mockserver.configuration.SystemProperties;
+import org.mockserver.matchers.BodyMatchResultCache;
 import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.matchers.MatchContext;
 import org.mockserver.matchers.MatcherBuilder;
 import org.mockserver.matchers.Times;
 import org.mockserver.mock.action.HttpForwardActionHandler;
@@ -16,9 +19,9 @@ import org.mockserver.model.HttpRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,7 +30,13 @@ import java.util.regex.Pattern;
  */
 public class MockServerMatcher extends EqualsHashCodeToString {
 
-    protected final List<Expectation> expectations = new ArrayList<Expectation>();
+    // copy-on-write so that handle can match against a consistent snapshot without taking a lock,
+    // writers still synchronize with each other but never block requests being matched
+    protected final List<Expectation> expectations = new CopyOnWriteArrayList<Expectation>();
+    // rebuilt on every write so handle only evaluates expectations whose method and literal path prefix could match
+    private volatile ExpectationIndex expectationIndex = new ExpectationIndex(expectations);
+    // results of matching identical bodies against the same expectation, disabled unless mockserver.bodyMatchResultCacheSize is set
+    private final BodyMatchResultCache bodyMatchResultCache = new BodyMatchResultCache(SystemProperties.bodyMatchResultCacheSize(), SystemProperties.bodyMatchResultCacheTimeToLive());
     private Logger requestLogger = LoggerFactory.getLogger("REQUEST");
     private HttpForwardActionHandler httpForwardActionHandler;
     private HttpResponseActionHandler httpResponseActionHandler;
@@ -56,19 +65,20 @@ public class MockServerMatcher extends EqualsHashCodeToString {
             expectation = new Expectation(httpRequest, times);
         }
         expectations.add(expectation);
+        expectationIndex = new ExpectationIndex(expectations);
         return expectation;
     }
 
-    public synchronized Action handle(HttpRequest httpRequest) {
-        ArrayList<Expectation> expectations = new ArrayList<Expectation>(this.expectations);
-        for (Expectation expectation : expectations) {
-            if (expectation.matches(httpRequest)) {
+    public Action handle(HttpRequest httpRequest) {
+        // parsed once and shared by every expectation
+        MatchContext matchContext = (httpRequest != null ? new MatchContext(httpRequest, bodyMatchResultCache) : null);
+        for (Expectation expectation : expectationIndex.candidates(httpRequest)) {
+            if (expectation.matchesContext(matchContext)) {
                 if (!expectation.getTimes().greaterThenZero()) {
-                    if (this.expectations.contains(expectation)) {
-                        this.expectations.remove(expectation);
-                    }
+                    remove(expectation);
                 }
-                return expectation.getAction(true);
+                // any delay is returned as part of the response and applied by the caller, so matching never sleeps
+                return expectation.getAction(false);
             }
         }
         return null;
@@ -77,13 +87,13 @@ public class MockServerMatcher extends EqualsHashCodeToString {
     public synchronized void clear(HttpRequest httpRequest) {
         if (httpRequest != null) {
             HttpRequestMatcher httpRequestMatcher = new MatcherBuilder().transformsToMatcher(httpRequest);
-            for (Expectation expectation : new ArrayList<Expectation>(expectations)) {
+            for (Expectation expectation : expectations) {
                 if (httpRequestMatcher.matches(expectation.getHttpRequest())) {
-                    if (this.expectations.contains(expectation)) {
-                        this.expectations.remove(expectation);
-                    }
+                    expectations.remove(expectation);
                 }
             }
+            expectationIndex = new ExpectationIndex(expectations);
+            bodyMatchResultCache.clear();
         } else {
             reset();
         }
@@ -91,19 +101,28 @@ public class MockServerMatcher extends EqualsHashCodeToString {
 
     public synchronized void reset() {
         this.expectations.clear();
+        expectationIndex = new ExpectationIndex(expectations);
+        bodyMatchResultCache.clear();
     }
 
-    public synchronized void dumpToLog(HttpRequest httpRequest) {
+    private synchronized void remove(Expectation expectation) {
+        if (expectations.remove(expectation)) {
+            expectationIndex = new ExpectationIndex(expectations);
+        }
+    }
+
+    public void dumpToLog(HttpRequest httpRequest) {
         if (httpRequest != null) {
             ExpectationSerializer expectationSerializer = new ExpectationSerializer();
-            for (Expectation expectation : new ArrayList<Expectation>(expectations)) {
-                if (expectation.matches(httpRequest)) {
+            MatchContext matchContext = new MatchContext(httpRequest, bodyMatchResultCache);
+            for (Expectation expectation : expectations) {
+                if (expectation.matchesContext(matchContext)) {
                     requestLogger.warn(cleanBase64Response(expectationSerializer.serialize(expectation)));
                 }
             }
         } else {
             ExpectationSerializer expectationSerializer = new ExpectationSerializer();
-            for (Expectation expectation : new ArrayList<Expectation>(expectations)) {
+            for (Expectation expectation : expectations) {
                 requestLogger.warn(cleanBase64Response(expectationSerializer.serialize(expectation)));
             }
         }
@@ -3,6 +3,8 @@ package org.mockserver.mock.action;
 import io.netty.handler.codec.http.HttpHeaders;
 import org.apache.http.client.utils.URIBuilder;
 import org.mockserver.client.http.ApacheHttpClient;
+import org.mockserver.client.http.StreamingHttpResponse;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.model.HttpForward;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
@@ -33,6 +35,29 @@ public class HttpForwardActionHandler {
         return sendRequest(filters.applyFilters(httpRequest));
     }
 
+    /**
+     * Forwards the request returning as soon as the status code and headers of the response have been received so the
+     * body can be streamed, the response filters are applied to the captured response once the streamed response is
+     * closed and can not change the response that has already been passed on
+     *
+     * @return the response, which must be closed, or null if the request was not forwarded by a request filter
+     */
+    public StreamingHttpResponse handleStreaming(HttpForward httpForward, HttpRequest httpRequest) {
+        updateURLAndHost(httpRequest, httpForward);
+        final HttpRequest filteredHttpRequest = filters.applyFilters(httpRequest);
+        if (filteredHttpRequest != null) {
+            final StreamingHttpResponse streamingHttpResponse = apacheHttpClient.sendStreamingRequest(filteredHttpRequest, SystemProperties.streamedResponseCaptureSize());
+            return streamingHttpResponse.whenClosed(new Runnable() {
+                @Override
+                public void run() {
+                    filters.applyFilters(filteredHttpRequest, streamingHttpResponse.getCapturedHttpResponse());
+                }
+            });
+        } else {
+            return null;
+        }
+    }
+
     private void updateURLAndHost(HttpRequest httpRequest, HttpForward httpForward) {
         try {
             URIBuilder uriBuilder = new URIBuilder(httpRequest.getURL());
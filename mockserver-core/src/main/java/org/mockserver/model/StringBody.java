@@ -1,11 +1,16 @@
 package org.mockserver.model;
 
+import java.nio.charset.Charset;
+
 /**
  * @author jamesdbloom
  */
 public class StringBody extends Body<String> {
 
-    private final String value;
+    private String value;
+    // the undecoded body of a received request, decoded only when the string value is first needed
+    private byte[] bytes;
+    private Charset charset;
 
     public StringBody(String value) {
         super(Type.STRING);
@@ -17,6 +22,16 @@ public class StringBody extends Body<String> {
         this.value = value;
     }
 
+    /**
+     * Creates a string body from bytes that are only decoded when the value is first needed, so the body of a
+     * request that is never matched against a string body matcher is never held as a string
+     */
+    public StringBody(byte[] bytes, Charset charset) {
+        super(Type.STRING);
+        this.bytes = bytes;
+        this.charset = charset;
+    }
+
     public static StringBody exact(String body) {
         return new StringBody(body, Type.STRING);
     }
@@ -33,12 +48,38 @@ public class StringBody extends Body<String> {
         return new StringBody(body, Type.JSON);
     }
 
-    public String getValue() {
+    public synchronized String getValue() {
+        if (bytes != null) {
+            value = new String(bytes, charset);
+            bytes = null;
+            charset = null;
+        }
         return value;
     }
 
+    @Override
+    protected String[] fieldsExcludedFromEqualsAndHashCode() {
+        return new String[]{"logger", "bytes", "charset"};
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        // the reflective comparison reads the value field so it must be decoded first
+        getValue();
+        if (other instanceof StringBody) {
+            ((StringBody) other).getValue();
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        getValue();
+        return super.hashCode();
+    }
+
     @Override
     public String toString() {
-        return value;
+        return getValue();
     }
 }
@@ -1,9 +1,7 @@
 package org.mockserver.proxy.filters;
 
 import org.mockserver.client.serialization.ExpectationSerializer;
-import org.mockserver.collections.CircularMultiMap;
-import org.mockserver.matchers.HttpRequestMatcher;
-import org.mockserver.matchers.MatcherBuilder;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.matchers.Times;
 import org.mockserver.mock.Expectation;
 import org.mockserver.model.HttpRequest;
@@ -11,112 +9,72 @@ import org.mockserver.model.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author jamesdbloom
  */
 public class LogFilter implements ProxyResponseFilter {
 
-    private final CircularMultiMap<HttpRequest, HttpResponse> requestResponseLog = new CircularMultiMap<HttpRequest, HttpResponse>(100, 100);
-    private final MatcherBuilder matcherBuilder = new MatcherBuilder();
+    private final RequestResponseLog requestResponseLog = new RequestResponseLog(SystemProperties.requestLogSegmentSize(), SystemProperties.requestLogMaxSegments(), new File(SystemProperties.requestLogDirectory()));
     private Logger requestLogger = LoggerFactory.getLogger("REQUEST");
 
     public synchronized HttpResponse onResponse(HttpRequest httpRequest, HttpResponse httpResponse) {
         if (httpRequest != null && httpResponse != null) {
-            requestResponseLog.put(httpRequest, httpResponse);
+            requestResponseLog.add(httpRequest, httpResponse);
         }
         return httpResponse;
     }
 
     public synchronized List<HttpResponse> httpResponses(HttpRequest httpRequest) {
-        List<HttpResponse> httpResponses = new ArrayList<HttpResponse>();
-        HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(httpRequest);
-        for (HttpRequest loggedHttpRequest : requestResponseLog.keySet()) {
-            if (httpRequestMatcher.matches(loggedHttpRequest)) {
-                httpResponses.addAll(requestResponseLog.getAll(loggedHttpRequest));
+        final List<HttpResponse> httpResponses = new ArrayList<HttpResponse>();
+        requestResponseLog.visit(httpRequest, new RequestResponseLog.Visitor() {
+            public void visit(HttpRequest loggedHttpRequest, HttpResponse loggedHttpResponse) {
+                httpResponses.add(loggedHttpResponse);
             }
-        }
+        });
         return httpResponses;
     }
 
     public synchronized List<HttpRequest> httpRequests(HttpRequest httpRequest) {
-        List<HttpRequest> httpRequests = new ArrayList<HttpRequest>();
-        HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(httpRequest);
-        for (HttpRequest loggedHttpRequest : requestResponseLog.keySet()) {
-            if (httpRequestMatcher.matches(loggedHttpRequest)) {
-                httpRequests.add(loggedHttpRequest);
-            }
-        }
-        return httpRequests;
+        return requestResponseLog.requests(httpRequest);
     }
 
     public synchronized void reset() {
-        synchronized (this.requestResponseLog) {
-            requestResponseLog.clear();
-        }
+        requestResponseLog.clear();
     }
 
     public synchronized void clear(HttpRequest httpRequest) {
         if (httpRequest != null) {
-            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(httpRequest);
-            for (HttpRequest key : new LinkedHashSet<HttpRequest>(requestResponseLog.keySet())) {
-                if (httpRequestMatcher.matches(key)) {
-                    synchronized (this.requestResponseLog) {
-                        requestResponseLog.removeAll(key);
-                    }
-                }
-            }
+            requestResponseLog.remove(httpRequest);
         } else {
             reset();
         }
     }
 
-    public synchronized void dumpToLog(HttpRequest httpRequest, boolean asJava) {
-        ExpectationSerializer expectationSerializer = new ExpectationSerializer();
-        if (httpRequest != null) {
-            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(httpRequest);
-            for (Map.Entry<HttpRequest, HttpResponse> entry : requestResponseLog.entrySet()) {
-                if (httpRequestMatcher.matches(entry.getKey())) {
-                    if (asJava) {
-                        requestLogger.warn(expectationSerializer.serializeAsJava(new Expectation(entry.getKey(), Times.once()).thenRespond(entry.getValue())));
-                    } else {
-                        requestLogger.warn(expectationSerializer.serialize(new Expectation(entry.getKey(), Times.once()).thenRespond(entry.getValue())));
-                    }
-                }
-            }
-        } else {
-            for (Map.Entry<HttpRequest, HttpResponse> entry : requestResponseLog.entrySet()) {
+    public synchronized void dumpToLog(HttpRequest httpRequest, final boolean asJava) {
+        final ExpectationSerializer expectationSerializer = new ExpectationSerializer();
+        // each exchange is logged as it is read so the whole log is never held in memory
+        requestResponseLog.visit(httpRequest, new RequestResponseLog.Visitor() {
+            public void visit(HttpRequest loggedHttpRequest, HttpResponse loggedHttpResponse) {
                 if (asJava) {
-                    requestLogger.warn(expectationSerializer.serializeAsJava(new Expectation(entry.getKey(), Times.once()).thenRespond(entry.getValue())));
+                    requestLogger.warn(expectationSerializer.serializeAsJava(new Expectation(loggedHttpRequest, Times.once()).thenRespond(loggedHttpResponse)));
                 } else {
-                    requestLogger.warn(expectationSerializer.serialize(new Expectation(entry.getKey(), Times.once()).thenRespond(entry.getValue())));
+                    requestLogger.warn(expectationSerializer.serialize(new Expectation(loggedHttpRequest, Times.once()).thenRespond(loggedHttpResponse)));
                 }
             }
-        }
+        });
     }
 
     public synchronized Expectation[] retrieve(HttpRequest httpRequest) {
-        List<Expectation> expectations = new ArrayList<Expectation>();
-        if (httpRequest != null) {
-            HttpRequestMatcher httpRequestMatcher = matcherBuilder.transformsToMatcher(httpRequest);
-            for (HttpRequest key : requestResponseLog.keySet()) {
-                for (HttpResponse value : requestResponseLog.getAll(key)) {
-                    if (httpRequestMatcher.matches(key)) {
-                        expectations.add(new Expectation(key, Times.once()).thenRespond(value));
-                    }
-                }
+        final List<Expectation> expectations = new ArrayList<Expectation>();
+        requestResponseLog.visit(httpRequest, new RequestResponseLog.Visitor() {
+            public void visit(HttpRequest loggedHttpRequest, HttpResponse loggedHttpResponse) {
+                expectations.add(new Expectation(loggedHttpRequest, Times.once()).thenRespond(loggedHttpResponse));
             }
-        } else {
-            for (HttpRequest key : requestResponseLog.keySet()) {
-                for (HttpResponse value : requestResponseLog.getAll(key)) {
-                    expectations.add(new Expectation(key, Times.once()).thenRespond(value));
-                }
-            }
-        }
+        });
         return expectations.toArray(new Expectation[expectations.size()]);
     }
 }
@@ -0,0 +1,345 @@
+package org.mockserver.proxy.filters;
+
+import org.mockserver.client.serialization.BinaryHttpSerializer;
+import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.matchers.MatcherBuilder;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Records requests and their responses by appending them in a compact binary form to a series of memory-mapped
+ * segment files, so the heap only holds a small index entry for each recorded exchange however many exchanges
+ * or however large their bodies are
+ *
+ * Exchanges are grouped by request, in the order each request was first recorded, the index holds the method and
+ * path of each request so a query only decodes the requests whose method and path could match it
+ *
+ * Once the maximum number of segments is full the oldest segment, and the exchanges it holds, is dropped, the segment
+ * files are only a store for the exchanges recorded by this instance, they are deleted when dropped or cleared and
+ * are never read back by a later instance
+ *
+ * This class is not thread safe
+ *
+ * @author jamesdbloom
+ */
+public class RequestResponseLog {
+
+    // request length and response length
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final Logger logger = LoggerFactory.getLogger(RequestResponseLog.class);
+    private final BinaryHttpSerializer binaryHttpSerializer = new BinaryHttpSerializer();
+    private final MatcherBuilder matcherBuilder = new MatcherBuilder();
+    private final int segmentSize;
+    private final int maxSegments;
+    private final File directory;
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+    private final Set<Group> groups = new LinkedHashSet<Group>();
+    private final Map<Integer, List<Group>> groupsByHash = new HashMap<Integer, List<Group>>();
+    private final Map<String, String> internedStrings = new HashMap<String, String>();
+
+    /**
+     * @param segmentSize the size of each segment file in bytes
+     * @param maxSegments the number of segments kept before the oldest is dropped
+     * @param directory the directory the segment files are created in
+     */
+    public RequestResponseLog(int segmentSize, int maxSegments, File directory) {
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.directory = directory;
+    }
+
+    public void add(HttpRequest httpRequest, HttpResponse httpResponse) {
+        ByteBuffer requestBytes = binaryHttpSerializer.serialize(httpRequest);
+        ByteBuffer responseBytes = binaryHttpSerializer.serialize(httpResponse);
+        Record record = append(requestBytes, responseBytes);
+
+        int hash = requestBytes.hashCode();
+        Group group = findGroup(hash, requestBytes);
+        if (group == null) {
+            group = new Group(intern(httpRequest.getMethod()), intern(httpRequest.getPath()), hash);
+            groups.add(group);
+            List<Group> groupsWithHash = groupsByHash.get(hash);
+            if (groupsWithHash == null) {
+                groupsWithHash = new ArrayList<Group>(1);
+                groupsByHash.put(hash, groupsWithHash);
+            }
+            groupsWithHash.add(group);
+        }
+        group.records.add(record);
+    }
+
+    /**
+     * @param httpRequest the request to match or null to match every request
+     * @return each distinct request recorded that matches
+     */
+    public List<HttpRequest> requests(HttpRequest httpRequest) {
+        List<HttpRequest> httpRequests = new ArrayList<HttpRequest>();
+        Query query = new Query(httpRequest);
+        for (Group group : groups) {
+            HttpRequest loggedHttpRequest = query.matches(group);
+            if (loggedHttpRequest != null) {
+                httpRequests.add(loggedHttpRequest);
+            }
+        }
+        return httpRequests;
+    }
+
+    /**
+     * Passes each exchange whose request matches to the visitor one at a time, so only one exchange is decoded at once
+     *
+     * @param httpRequest the request to match or null to match every request
+     */
+    public void visit(HttpRequest httpRequest, Visitor visitor) {
+        Query query = new Query(httpRequest);
+        for (Group group : groups) {
+            HttpRequest loggedHttpRequest = query.matches(group);
+            if (loggedHttpRequest != null) {
+                for (Record record : group.records) {
+                    visitor.visit(loggedHttpRequest, record.readResponse());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param httpRequest the request to match or null to match every request
+     */
+    public void remove(HttpRequest httpRequest) {
+        Query query = new Query(httpRequest);
+        for (Iterator<Group> iterator = groups.iterator(); iterator.hasNext(); ) {
+            Group group = iterator.next();
+            if (query.matches(group) != null) {
+                iterator.remove();
+                removeFromHash(group);
+            }
+        }
+        pruneInternedStrings();
+    }
+
+    public void clear() {
+        groups.clear();
+        groupsByHash.clear();
+        internedStrings.clear();
+        while (!segments.isEmpty()) {
+            delete(segments.removeFirst());
+        }
+    }
+
+    private Group findGroup(int hash, ByteBuffer requestBytes) {
+        List<Group> groupsWithHash = groupsByHash.get(hash);
+        if (groupsWithHash != null) {
+            for (Group group : groupsWithHash) {
+                if (group.records.getFirst().requestBytes().equals(requestBytes)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void removeFromHash(Group group) {
+        List<Group> groupsWithHash = groupsByHash.get(group.hash);
+        groupsWithHash.remove(group);
+        if (groupsWithHash.isEmpty()) {
+            groupsByHash.remove(group.hash);
+        }
+    }
+
+    private String intern(String value) {
+        String interned = internedStrings.get(value);
+        if (interned == null) {
+            internedStrings.put(value, value);
+            interned = value;
+        }
+        return interned;
+    }
+
+    /**
+     * Keeps only the strings still used by a recorded request
+     */
+    private void pruneInternedStrings() {
+        internedStrings.clear();
+        for (Group group : groups) {
+            internedStrings.put(group.method, group.method);
+            internedStrings.put(group.path, group.path);
+        }
+    }
+
+    private Record append(ByteBuffer requestBytes, ByteBuffer responseBytes) {
+        int recordSize = RECORD_HEADER_SIZE + requestBytes.remaining() + responseBytes.remaining();
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.remaining() < recordSize) {
+            // a record larger than a segment is given a segment of its own
+            segment = new Segment(directory, Math.max(segmentSize, recordSize));
+            segments.addLast(segment);
+            if (segments.size() > maxSegments) {
+                drop(segments.removeFirst());
+            }
+        }
+        Record record = new Record(segment, segment.buffer.position());
+        segment.buffer.putInt(requestBytes.remaining()).putInt(responseBytes.remaining()).put(requestBytes.duplicate()).put(responseBytes.duplicate());
+        return record;
+    }
+
+    private void drop(Segment segment) {
+        // records are appended in order so any record in the oldest segment is at the start of its group
+        for (Iterator<Group> iterator = groups.iterator(); iterator.hasNext(); ) {
+            Group group = iterator.next();
+            while (!group.records.isEmpty() && group.records.getFirst().segment == segment) {
+                group.records.removeFirst();
+            }
+            if (group.records.isEmpty()) {
+                iterator.remove();
+                removeFromHash(group);
+            }
+        }
+        pruneInternedStrings();
+        delete(segment);
+    }
+
+    private void delete(Segment segment) {
+        unmap(segment.buffer);
+        if (!segment.file.delete()) {
+            logger.debug("Failed to delete request log segment " + segment.file);
+        }
+    }
+
+    /**
+     * Releases the mapping now rather than when the buffer is garbage collected, which may be long after the segment
+     * is dropped, the buffer's cleaner is not public api so it is called reflectively and if it is not available the
+     * mapping is left to the garbage collector, no record may refer to the segment once it is unmapped
+     */
+    private void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to unmap request log segment, the mapping will be released when it is garbage collected", e);
+        }
+    }
+
+    /**
+     * Receives each matching exchange in turn
+     */
+    public interface Visitor {
+        void visit(HttpRequest httpRequest, HttpResponse httpResponse);
+    }
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+
+        private Segment(File directory, int size) {
+            RandomAccessFile randomAccessFile = null;
+            try {
+                file = File.createTempFile("mockserver-request-log", ".segment", directory);
+                randomAccessFile = new RandomAccessFile(file, "rw");
+                buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException ioe) {
+                throw new RuntimeException("Exception while creating request log segment", ioe);
+            } finally {
+                if (randomAccessFile != null) {
+                    try {
+                        // the mapping remains valid after the file is closed
+                        randomAccessFile.close();
+                    } catch (IOException ioe) {
+                        logger.debug("Exception while closing request log segment", ioe);
+                    }
+                }
+            }
+        }
+    }
+
+    private class Record {
+        private final Segment segment;
+        private final int position;
+
+        private Record(Segment segment, int position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        private ByteBuffer requestBytes() {
+            ByteBuffer view = segment.buffer.duplicate();
+            view.limit(position + RECORD_HEADER_SIZE + view.getInt(position)).position(position + RECORD_HEADER_SIZE);
+            return view;
+        }
+
+        private HttpRequest readRequest() {
+            return binaryHttpSerializer.deserializeHttpRequest(requestBytes());
+        }
+
+        private HttpResponse readResponse() {
+            ByteBuffer view = segment.buffer.duplicate();
+            view.position(position + RECORD_HEADER_SIZE + view.getInt(position));
+            return binaryHttpSerializer.deserializeHttpResponse(view);
+        }
+    }
+
+    private class Group {
+        private final String method;
+        private final String path;
+        private final int hash;
+        private final LinkedList<Record> records = new LinkedList<Record>();
+
+        private Group(String method, String path, int hash) {
+            this.method = method;
+            this.path = path;
+            this.hash = hash;
+        }
+    }
+
+    private class Query {
+        private final HttpRequestMatcher httpRequestMatcher;
+        private final HttpRequestMatcher methodAndPathMatcher;
+        // the same method and path is recorded many times so each is only matched once per query
+        private final Map<String, Boolean> methodAndPathMatches = new HashMap<String, Boolean>();
+
+        private Query(HttpRequest httpRequest) {
+            if (httpRequest != null) {
+                httpRequestMatcher = matcherBuilder.transformsToMatcher(httpRequest);
+                methodAndPathMatcher = matcherBuilder.transformsToMatcher(new HttpRequest().withMethod(httpRequest.getMethod()).withPath(httpRequest.getPath()));
+            } else {
+                httpRequestMatcher = null;
+                methodAndPathMatcher = null;
+            }
+        }
+
+        /**
+         * @return the decoded request if it matches otherwise null
+         */
+        private HttpRequest matches(Group group) {
+            if (httpRequestMatcher == null) {
+                return group.records.getFirst().readRequest();
+            }
+            String methodAndPath = group.method + " " + group.path;
+            Boolean methodAndPathMatch = methodAndPathMatches.get(methodAndPath);
+            if (methodAndPathMatch == null) {
+                methodAndPathMatch = methodAndPathMatcher.matches(new HttpRequest().withMethod(group.method).withPath(group.path));
+                methodAndPathMatches.put(methodAndPath, methodAndPathMatch);
+            }
+            if (!methodAndPathMatch) {
+                return null;
+            }
+            HttpRequest loggedHttpRequest = group.records.getFirst().readRequest();
+            return httpRequestMatcher.matches(loggedHttpRequest) ? loggedHttpRequest : null;
+        }
+    }
+}
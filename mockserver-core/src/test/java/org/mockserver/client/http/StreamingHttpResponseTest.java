@@ -0,0 +1,118 @@
+package org.mockserver.client.http;
+
+import com.google.common.io.ByteStreams;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Test;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.Body;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.StringBody;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class StreamingHttpResponseTest {
+
+    private CloseableHttpResponse clientResponse(byte[] body) {
+        CloseableHttpResponse clientResponse = mock(CloseableHttpResponse.class);
+        when(clientResponse.getEntity()).thenReturn(new ByteArrayEntity(body));
+        return clientResponse;
+    }
+
+    @Test
+    public void shouldStreamWholeBodyAndCaptureUpToCaptureSize() throws IOException {
+        // given
+        HttpResponse httpResponse = new HttpResponse().withStatusCode(200).withHeaders(new Header("headerName", "headerValue"));
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(httpResponse, clientResponse("some_body".getBytes()), 4);
+
+        // when
+        byte[] body = ByteStreams.toByteArray(streamingHttpResponse.getBody());
+
+        // then
+        assertThat(streamingHttpResponse.hasBody(), is(true));
+        assertThat(new String(body), is("some_body"));
+        assertThat(streamingHttpResponse.getCapturedHttpResponse(), is(
+                new HttpResponse().withStatusCode(200).withHeaders(new Header("headerName", "headerValue")).withBody("some")
+        ));
+        assertThat(streamingHttpResponse.isCaptureTruncated(), is(true));
+    }
+
+    @Test
+    public void shouldCaptureWholeBodyWhenSmallerThanCaptureSize() throws IOException {
+        // given
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse(), clientResponse("some_body".getBytes()), 1024);
+
+        // when
+        ByteStreams.toByteArray(streamingHttpResponse.getBody());
+
+        // then
+        assertThat(streamingHttpResponse.getCapturedHttpResponse().getBodyAsString(), is("some_body"));
+        assertThat(streamingHttpResponse.isCaptureTruncated(), is(false));
+    }
+
+    @Test
+    public void shouldCaptureBodyAsBinaryWhenContentTypeIsNotText() throws IOException {
+        // given
+        byte[] bytes = new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, (byte) 0xff};
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse().withHeaders(new Header("Content-Type", "image/png")), clientResponse(bytes), 1024);
+
+        // when
+        ByteStreams.toByteArray(streamingHttpResponse.getBody());
+
+        // then
+        assertThat(streamingHttpResponse.getCapturedHttpResponse().getBody(), is((Body) new BinaryBody(bytes)));
+    }
+
+    @Test
+    public void shouldCaptureBodyAsStringWhenContentTypeIsText() throws IOException {
+        // given
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse().withHeaders(new Header("content-type", "application/json; charset=utf-8")), clientResponse("{ \"some\": \"json\" }".getBytes()), 1024);
+
+        // when
+        ByteStreams.toByteArray(streamingHttpResponse.getBody());
+
+        // then
+        assertThat(streamingHttpResponse.getCapturedHttpResponse().getBody(), is((Body) new StringBody("{ \"some\": \"json\" }")));
+    }
+
+    @Test
+    public void shouldHandleResponseWithoutBody() throws IOException {
+        // given
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse().withStatusCode(204), null, 1024);
+
+        // then
+        assertThat(streamingHttpResponse.hasBody(), is(false));
+        assertThat(streamingHttpResponse.getBody().read(), is(-1));
+        assertThat(streamingHttpResponse.getCapturedHttpResponse().getStatusCode(), is(204));
+    }
+
+    @Test
+    public void shouldCloseClientResponseAndRunWhenClosedOnce() throws IOException {
+        // given
+        CloseableHttpResponse clientResponse = clientResponse("some_body".getBytes());
+        final AtomicInteger closedCount = new AtomicInteger();
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse(), clientResponse, 1024).whenClosed(new Runnable() {
+            @Override
+            public void run() {
+                closedCount.incrementAndGet();
+            }
+        });
+
+        // when
+        streamingHttpResponse.close();
+        streamingHttpResponse.close();
+
+        // then
+        verify(clientResponse).close();
+        assertThat(closedCount.get(), is(1));
+    }
+}
@@ -0,0 +1,151 @@
+package org.mockserver.client.serialization;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.mockserver.model.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockserver.model.BinaryBody.binary;
+import static org.mockserver.model.Parameter.param;
+import static org.mockserver.model.ParameterBody.params;
+import static org.mockserver.model.StringBody.json;
+
+/**
+ * @author jamesdbloom
+ */
+public class BinaryHttpSerializerTest {
+
+    private final BinaryHttpSerializer binaryHttpSerializer = new BinaryHttpSerializer();
+
+    @Test
+    public void shouldSerializeAndDeserializeFullHttpRequest() {
+        // given
+        HttpRequest httpRequest = new HttpRequest()
+                .withMethod("POST")
+                .withURL("http://localhost:1080/some_path?parameterOneName=parameterOneValue")
+                .withPath("/some_path")
+                .withQueryStringParameters(param("parameterOneName", "parameterOneValueOne", "parameterOneValueTwo"))
+                .withBody(params(param("bodyParameterName", "bodyParameterValue")))
+                .withHeaders(new Header("headerName", "headerValueOne", "headerValueTwo"))
+                .withCookies(new Cookie("cookieName", "cookieValue"));
+
+        // when
+        HttpRequest deserializedHttpRequest = binaryHttpSerializer.deserializeHttpRequest(binaryHttpSerializer.serialize(httpRequest));
+
+        // then
+        assertThat(deserializedHttpRequest, is(httpRequest));
+    }
+
+    @Test
+    public void shouldSerializeAndDeserializeHttpRequestWithoutBody() {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("/some_path");
+
+        // when
+        HttpRequest deserializedHttpRequest = binaryHttpSerializer.deserializeHttpRequest(binaryHttpSerializer.serialize(httpRequest));
+
+        // then
+        assertThat(deserializedHttpRequest, is(httpRequest));
+    }
+
+    @Test
+    public void shouldSerializeAndDeserializeHttpRequestWithBinaryBody() {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withBody(binary(new byte[]{0, 1, 2, -1}));
+
+        // when
+        HttpRequest deserializedHttpRequest = binaryHttpSerializer.deserializeHttpRequest(binaryHttpSerializer.serialize(httpRequest));
+
+        // then
+        assertThat(deserializedHttpRequest, is(httpRequest));
+        assertThat(deserializedHttpRequest.getRawBodyBytes(), is(new byte[]{0, 1, 2, -1}));
+    }
+
+    @Test
+    public void shouldWriteRawBodyBytesOnceAndRebuildStringBody() {
+        // given
+        byte[] bodyBytes = new byte[4096];
+        Arrays.fill(bodyBytes, (byte) 'a');
+        HttpRequest httpRequest = new HttpRequest().withPath("/some_path").withBody(new StringBody(bodyBytes, Charsets.UTF_8));
+        httpRequest.setRawBodyBytes(bodyBytes);
+
+        // when
+        ByteBuffer serializedHttpRequest = binaryHttpSerializer.serialize(httpRequest);
+        int serializedLength = serializedHttpRequest.remaining();
+        HttpRequest deserializedHttpRequest = binaryHttpSerializer.deserializeHttpRequest(serializedHttpRequest);
+
+        // then
+        assertThat(serializedLength < bodyBytes.length * 2, is(true));
+        assertThat(serializedHttpRequest.array().length < bodyBytes.length * 2, is(true));
+        assertThat(deserializedHttpRequest, is(httpRequest));
+        assertThat(deserializedHttpRequest.getRawBodyBytes(), is(bodyBytes));
+    }
+
+    @Test
+    public void shouldWriteBodyThatCannotBeRebuiltFromRawBodyBytes() {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("/some_path").withBody(json("{ \"name\": \"value\" }"));
+        httpRequest.setRawBodyBytes("{ \"name\": \"value\" }".getBytes(Charsets.UTF_8));
+
+        // when
+        HttpRequest deserializedHttpRequest = binaryHttpSerializer.deserializeHttpRequest(binaryHttpSerializer.serialize(httpRequest));
+
+        // then
+        assertThat(deserializedHttpRequest, is(httpRequest));
+    }
+
+    @Test
+    public void shouldSerializeAndDeserializeFullHttpResponse() {
+        // given
+        HttpResponse httpResponse = new HttpResponse()
+                .withStatusCode(304)
+                .withBody(json("{ \"name\": \"v\u00e4lue\" }"))
+                .withHeaders(new Header("headerName", "headerValue"))
+                .withCookies(new Cookie("cookieName", "cookieValue"))
+                .withDelay(new Delay(TimeUnit.MILLISECONDS, 50));
+
+        // when
+        HttpResponse deserializedHttpResponse = binaryHttpSerializer.deserializeHttpResponse(binaryHttpSerializer.serialize(httpResponse));
+
+        // then
+        assertThat(deserializedHttpResponse, is(httpResponse));
+    }
+
+    @Test
+    public void shouldSerializeAndDeserializeHttpResponseWithBinaryBody() {
+        // given
+        HttpResponse httpResponse = new HttpResponse().withBody(new byte[]{0, 1, 2, -1});
+
+        // when
+        HttpResponse deserializedHttpResponse = binaryHttpSerializer.deserializeHttpResponse(binaryHttpSerializer.serialize(httpResponse));
+
+        // then
+        assertThat(deserializedHttpResponse, is(httpResponse));
+        assertThat(deserializedHttpResponse.getRawBodyBytes(), is(new byte[]{0, 1, 2, -1}));
+    }
+
+    @Test
+    public void shouldDeserializeRequestAndResponseFromSameBuffer() {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("/some_path").withBody("some_request_body");
+        HttpResponse httpResponse = new HttpResponse().withBody("some_response_body");
+        ByteBuffer requestBytes = binaryHttpSerializer.serialize(httpRequest);
+        ByteBuffer responseBytes = binaryHttpSerializer.serialize(httpResponse);
+        ByteBuffer buffer = ByteBuffer.allocate(requestBytes.remaining() + responseBytes.remaining()).put(requestBytes).put(responseBytes);
+        buffer.flip();
+
+        // when
+        HttpRequest deserializedHttpRequest = binaryHttpSerializer.deserializeHttpRequest(buffer);
+        HttpResponse deserializedHttpResponse = binaryHttpSerializer.deserializeHttpResponse(buffer);
+
+        // then
+        assertThat(deserializedHttpRequest, is(httpRequest));
+        assertThat(deserializedHttpResponse, is(httpResponse));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+}
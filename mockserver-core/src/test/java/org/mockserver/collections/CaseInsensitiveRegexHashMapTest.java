@@ -177,4 +177,30 @@ public class CaseInsensitiveRegexHashMapTest {
         assertFalse(circularMultiMap.containsKey("one"));
         assertFalse(circularMultiMap.containsKey("two"));
     }
+
+    @Test
+    public void shouldSupportRemovingRegexKeys() {
+        // given
+        CaseInsensitiveRegexHashMap<String> circularMultiMap = new CaseInsensitiveRegexHashMap<String>();
+        circularMultiMap.put("one.*", "one_regex");
+        circularMultiMap.put("one", "one_one");
+
+        // when
+        assertEquals("one_regex", circularMultiMap.remove("one.*"));
+
+        // then
+        assertEquals(Arrays.asList("one_one"), circularMultiMap.getAll("ONE"));
+        assertTrue(circularMultiMap.getAll("one_two").isEmpty());
+        assertEquals(Sets.newHashSet("one"), circularMultiMap.keySet());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowKeysToBeRemovedThroughKeySet() {
+        // given
+        CaseInsensitiveRegexHashMap<String> circularMultiMap = new CaseInsensitiveRegexHashMap<String>();
+        circularMultiMap.put("one", "one_one");
+
+        // then
+        circularMultiMap.keySet().remove("one");
+    }
 }
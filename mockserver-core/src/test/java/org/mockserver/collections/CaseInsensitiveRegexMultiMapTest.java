@@ -369,4 +369,53 @@ public class CaseInsensitiveRegexMultiMapTest {
         assertEquals(0, circularMultiMap.getAll("one").size());
         assertEquals(Arrays.asList("two"), circularMultiMap.getAll("two"));
     }
+
+    @Test
+    public void shouldAddValuesToKeyEqualIgnoringCase() {
+        // given
+        CaseInsensitiveRegexMultiMap circularMultiMap = new CaseInsensitiveRegexMultiMap();
+
+        // when
+        circularMultiMap.put("one", "one_one");
+        circularMultiMap.put("ONE", "one_two");
+        circularMultiMap.put("o.*", "one_three");
+
+        // then
+        assertEquals(2, circularMultiMap.size());
+        assertEquals(Sets.newHashSet("one", "o.*"), circularMultiMap.keySet());
+        assertEquals(Arrays.asList("one_one", "one_two", "one_three"), circularMultiMap.getAll("One"));
+    }
+
+    @Test
+    public void shouldContainAllLiteralAndRegexKeysAndValues() {
+        // given
+        CaseInsensitiveRegexMultiMap superSet = new CaseInsensitiveRegexMultiMap();
+        superSet.put("Content-Type", "application/json");
+        superSet.put("Accept", "text/plain");
+        superSet.put("Accept", "text/html");
+        superSet.put("X-Custom-Header", "value");
+
+        CaseInsensitiveRegexMultiMap literalSubSet = new CaseInsensitiveRegexMultiMap();
+        literalSubSet.put("content-type", "application/json");
+        literalSubSet.put("ACCEPT", "text/html");
+
+        CaseInsensitiveRegexMultiMap regexSubSet = new CaseInsensitiveRegexMultiMap();
+        regexSubSet.put("x-custom-.*", "val.*");
+        regexSubSet.put("Accept", "text/.*");
+
+        CaseInsensitiveRegexMultiMap missingValueSubSet = new CaseInsensitiveRegexMultiMap();
+        missingValueSubSet.put("Accept", "application/xml");
+
+        CaseInsensitiveRegexMultiMap missingKeySubSet = new CaseInsensitiveRegexMultiMap();
+        missingKeySubSet.put("Content-Length", "10");
+
+        // then
+        assertTrue(superSet.containsAll(literalSubSet));
+        assertTrue(superSet.containsAll(regexSubSet));
+        assertTrue(superSet.containsAll(new CaseInsensitiveRegexMultiMap()));
+        assertFalse(superSet.containsAll(missingValueSubSet));
+        assertFalse(superSet.containsAll(missingKeySubSet));
+        assertTrue(superSet.containsKeyValue("accept", "text/plain"));
+        assertFalse(superSet.containsKeyValue("content-type", "text/plain"));
+    }
 }
@@ -10,7 +10,7 @@ import java.io.StringWriter;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * @author jamesdbloom
@@ -77,6 +77,423 @@ public class SystemPropertiesTest {
         SystemProperties.bufferSize();
     }
 
+    @Test
+    public void shouldSetAndReadRegexPatternCacheSize() {
+        // given
+        System.clearProperty("mockserver.regexPatternCacheSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_REGEX_PATTERN_CACHE_SIZE, SystemProperties.regexPatternCacheSize());
+        SystemProperties.regexPatternCacheSize(100);
+
+        // then
+        assertEquals(100, SystemProperties.regexPatternCacheSize());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidRegexPatternCacheSize() {
+        // given
+        System.setProperty("mockserver.regexPatternCacheSize", "invalid");
+
+        // then
+        SystemProperties.regexPatternCacheSize();
+    }
+
+    @Test
+    public void shouldSetAndReadBodyMatchResultCacheSize() {
+        // given
+        System.clearProperty("mockserver.bodyMatchResultCacheSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_BODY_MATCH_RESULT_CACHE_SIZE, SystemProperties.bodyMatchResultCacheSize());
+        SystemProperties.bodyMatchResultCacheSize(100);
+
+        // then
+        assertEquals(100, SystemProperties.bodyMatchResultCacheSize());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidBodyMatchResultCacheSize() {
+        // given
+        System.setProperty("mockserver.bodyMatchResultCacheSize", "invalid");
+
+        // then
+        SystemProperties.bodyMatchResultCacheSize();
+    }
+
+    @Test
+    public void shouldSetAndReadBodyMatchResultCacheTimeToLive() {
+        // given
+        System.clearProperty("mockserver.bodyMatchResultCacheTimeToLive");
+
+        // when
+        assertEquals(TimeUnit.SECONDS.toMillis(SystemProperties.DEFAULT_BODY_MATCH_RESULT_CACHE_TIME_TO_LIVE), SystemProperties.bodyMatchResultCacheTimeToLive());
+        SystemProperties.bodyMatchResultCacheTimeToLive(100);
+
+        // then
+        assertEquals(100, SystemProperties.bodyMatchResultCacheTimeToLive());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidBodyMatchResultCacheTimeToLive() {
+        // given
+        System.setProperty("mockserver.bodyMatchResultCacheTimeToLive", "invalid");
+
+        // then
+        SystemProperties.bodyMatchResultCacheTimeToLive();
+    }
+
+    @Test
+    public void shouldSetAndReadXPathStreamingEvaluation() {
+        // given
+        System.clearProperty("mockserver.xpathStreamingEvaluation");
+
+        // when
+        assertFalse(SystemProperties.xpathStreamingEvaluation());
+        SystemProperties.xpathStreamingEvaluation(true);
+
+        // then
+        assertTrue(SystemProperties.xpathStreamingEvaluation());
+    }
+
+    @Test
+    public void shouldSetAndReadEventLoopThreadCount() {
+        // given
+        System.clearProperty("mockserver.eventLoopThreadCount");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_EVENT_LOOP_THREAD_COUNT, SystemProperties.eventLoopThreadCount());
+        SystemProperties.eventLoopThreadCount(10);
+
+        // then
+        assertEquals(10, SystemProperties.eventLoopThreadCount());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidEventLoopThreadCount() {
+        // given
+        System.setProperty("mockserver.eventLoopThreadCount", "invalid");
+
+        // then
+        SystemProperties.eventLoopThreadCount();
+    }
+
+    @Test
+    public void shouldSetAndReadActionHandlerThreadCount() {
+        // given
+        System.clearProperty("mockserver.actionHandlerThreadCount");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_ACTION_HANDLER_THREAD_COUNT, SystemProperties.actionHandlerThreadCount());
+        SystemProperties.actionHandlerThreadCount(10);
+
+        // then
+        assertEquals(10, SystemProperties.actionHandlerThreadCount());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidActionHandlerThreadCount() {
+        // given
+        System.setProperty("mockserver.actionHandlerThreadCount", "invalid");
+
+        // then
+        SystemProperties.actionHandlerThreadCount();
+    }
+
+    @Test
+    public void shouldSetAndReadStreamingThreadCount() {
+        // given
+        System.clearProperty("mockserver.streamingThreadCount");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_STREAMING_THREAD_COUNT, SystemProperties.streamingThreadCount());
+        SystemProperties.streamingThreadCount(10);
+
+        // then
+        assertEquals(10, SystemProperties.streamingThreadCount());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidStreamingThreadCount() {
+        // given
+        System.setProperty("mockserver.streamingThreadCount", "invalid");
+
+        // then
+        SystemProperties.streamingThreadCount();
+    }
+
+    @Test
+    public void shouldSetAndReadNativeTransport() {
+        // given
+        System.clearProperty("mockserver.nativeTransport");
+
+        // when
+        assertFalse(SystemProperties.nativeTransport());
+        SystemProperties.nativeTransport(true);
+
+        // then
+        assertTrue(SystemProperties.nativeTransport());
+    }
+
+    @Test
+    public void shouldSetAndReadAcceptorThreadCount() {
+        // given
+        System.clearProperty("mockserver.acceptorThreadCount");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_ACCEPTOR_THREAD_COUNT, SystemProperties.acceptorThreadCount());
+        SystemProperties.acceptorThreadCount(10);
+
+        // then
+        assertEquals(10, SystemProperties.acceptorThreadCount());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidAcceptorThreadCount() {
+        // given
+        System.setProperty("mockserver.acceptorThreadCount", "invalid");
+
+        // then
+        SystemProperties.acceptorThreadCount();
+    }
+
+    @Test
+    public void shouldSetAndReadTcpNoDelay() {
+        // given
+        System.clearProperty("mockserver.tcpNoDelay");
+
+        // when
+        assertTrue(SystemProperties.tcpNoDelay());
+        SystemProperties.tcpNoDelay(false);
+
+        // then
+        assertFalse(SystemProperties.tcpNoDelay());
+    }
+
+    @Test
+    public void shouldSetAndReadWriteBufferHighWaterMark() {
+        // given
+        System.clearProperty("mockserver.writeBufferHighWaterMark");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK, SystemProperties.writeBufferHighWaterMark());
+        SystemProperties.writeBufferHighWaterMark(10);
+
+        // then
+        assertEquals(10, SystemProperties.writeBufferHighWaterMark());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidWriteBufferHighWaterMark() {
+        // given
+        System.setProperty("mockserver.writeBufferHighWaterMark", "invalid");
+
+        // then
+        SystemProperties.writeBufferHighWaterMark();
+    }
+
+    @Test
+    public void shouldSetAndReadWriteBufferLowWaterMark() {
+        // given
+        System.clearProperty("mockserver.writeBufferLowWaterMark");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK, SystemProperties.writeBufferLowWaterMark());
+        SystemProperties.writeBufferLowWaterMark(10);
+
+        // then
+        assertEquals(10, SystemProperties.writeBufferLowWaterMark());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidWriteBufferLowWaterMark() {
+        // given
+        System.setProperty("mockserver.writeBufferLowWaterMark", "invalid");
+
+        // then
+        SystemProperties.writeBufferLowWaterMark();
+    }
+
+    @Test
+    public void shouldSetAndReadKeepAliveIdleTimeout() {
+        // given
+        System.clearProperty("mockserver.keepAliveIdleTimeout");
+
+        // when
+        assertEquals(TimeUnit.SECONDS.toMillis(SystemProperties.DEFAULT_KEEP_ALIVE_IDLE_TIMEOUT), SystemProperties.keepAliveIdleTimeout());
+        SystemProperties.keepAliveIdleTimeout(10L);
+
+        // then
+        assertEquals(10L, SystemProperties.keepAliveIdleTimeout());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidKeepAliveIdleTimeout() {
+        // given
+        System.setProperty("mockserver.keepAliveIdleTimeout", "invalid");
+
+        // then
+        SystemProperties.keepAliveIdleTimeout();
+    }
+
+    @Test
+    public void shouldSetAndReadMaxUpstreamConnectionsPerHost() {
+        // given
+        System.clearProperty("mockserver.maxUpstreamConnectionsPerHost");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_MAX_UPSTREAM_CONNECTIONS_PER_HOST, SystemProperties.maxUpstreamConnectionsPerHost());
+        SystemProperties.maxUpstreamConnectionsPerHost(10);
+
+        // then
+        assertEquals(10, SystemProperties.maxUpstreamConnectionsPerHost());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidMaxUpstreamConnectionsPerHost() {
+        // given
+        System.setProperty("mockserver.maxUpstreamConnectionsPerHost", "invalid");
+
+        // then
+        SystemProperties.maxUpstreamConnectionsPerHost();
+    }
+
+    @Test
+    public void shouldSetAndReadMaxIdleUpstreamConnectionsPerHost() {
+        // given
+        System.clearProperty("mockserver.maxIdleUpstreamConnectionsPerHost");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_MAX_IDLE_UPSTREAM_CONNECTIONS_PER_HOST, SystemProperties.maxIdleUpstreamConnectionsPerHost());
+        SystemProperties.maxIdleUpstreamConnectionsPerHost(10);
+
+        // then
+        assertEquals(10, SystemProperties.maxIdleUpstreamConnectionsPerHost());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidMaxIdleUpstreamConnectionsPerHost() {
+        // given
+        System.setProperty("mockserver.maxIdleUpstreamConnectionsPerHost", "invalid");
+
+        // then
+        SystemProperties.maxIdleUpstreamConnectionsPerHost();
+    }
+
+    @Test
+    public void shouldSetAndReadUpstreamConnectionIdleTimeout() {
+        // given
+        System.clearProperty("mockserver.upstreamConnectionIdleTimeout");
+
+        // when
+        assertEquals(TimeUnit.SECONDS.toMillis(SystemProperties.DEFAULT_UPSTREAM_CONNECTION_IDLE_TIMEOUT), SystemProperties.upstreamConnectionIdleTimeout());
+        SystemProperties.upstreamConnectionIdleTimeout(10L);
+
+        // then
+        assertEquals(10L, SystemProperties.upstreamConnectionIdleTimeout());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidUpstreamConnectionIdleTimeout() {
+        // given
+        System.setProperty("mockserver.upstreamConnectionIdleTimeout", "invalid");
+
+        // then
+        SystemProperties.upstreamConnectionIdleTimeout();
+    }
+
+    @Test
+    public void shouldSetAndReadStreamForwardedResponses() {
+        // given
+        System.clearProperty("mockserver.streamForwardedResponses");
+
+        // when
+        assertFalse(SystemProperties.streamForwardedResponses());
+        SystemProperties.streamForwardedResponses(true);
+
+        // then
+        assertTrue(SystemProperties.streamForwardedResponses());
+    }
+
+    @Test
+    public void shouldSetAndReadStreamedResponseCaptureSize() {
+        // given
+        System.clearProperty("mockserver.streamedResponseCaptureSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_STREAMED_RESPONSE_CAPTURE_SIZE, SystemProperties.streamedResponseCaptureSize());
+        SystemProperties.streamedResponseCaptureSize(1024);
+
+        // then
+        assertEquals(1024, SystemProperties.streamedResponseCaptureSize());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidStreamedResponseCaptureSize() {
+        // given
+        System.setProperty("mockserver.streamedResponseCaptureSize", "invalid");
+
+        // then
+        SystemProperties.streamedResponseCaptureSize();
+    }
+
+    @Test
+    public void shouldSetAndReadRequestLogSegmentSize() {
+        // given
+        System.clearProperty("mockserver.requestLogSegmentSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_REQUEST_LOG_SEGMENT_SIZE, SystemProperties.requestLogSegmentSize());
+        SystemProperties.requestLogSegmentSize(1024);
+
+        // then
+        assertEquals(1024, SystemProperties.requestLogSegmentSize());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidRequestLogSegmentSize() {
+        // given
+        System.setProperty("mockserver.requestLogSegmentSize", "invalid");
+
+        // then
+        SystemProperties.requestLogSegmentSize();
+    }
+
+    @Test
+    public void shouldSetAndReadRequestLogMaxSegments() {
+        // given
+        System.clearProperty("mockserver.requestLogMaxSegments");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_REQUEST_LOG_MAX_SEGMENTS, SystemProperties.requestLogMaxSegments());
+        SystemProperties.requestLogMaxSegments(10);
+
+        // then
+        assertEquals(10, SystemProperties.requestLogMaxSegments());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidRequestLogMaxSegments() {
+        // given
+        System.setProperty("mockserver.requestLogMaxSegments", "invalid");
+
+        // then
+        SystemProperties.requestLogMaxSegments();
+    }
+
+    @Test
+    public void shouldSetAndReadRequestLogDirectory() {
+        // given
+        System.clearProperty("mockserver.requestLogDirectory");
+
+        // when
+        assertEquals(System.getProperty("java.io.tmpdir"), SystemProperties.requestLogDirectory());
+        SystemProperties.requestLogDirectory("/some/directory");
+
+        // then
+        assertEquals("/some/directory", SystemProperties.requestLogDirectory());
+    }
+
     @Test
     public void shouldSetAndReadServerStopPort() {
         // given
@@ -0,0 +1,75 @@
+package org.mockserver.matchers;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author jamesdbloom
+ */
+public class BodyMatchResultCacheTest {
+
+    private final HashCode bodyDigest = Hashing.sha256().hashString("some_body", Charsets.UTF_8);
+
+    @Test
+    public void shouldCacheResultForBodyMatcherAndBodyDigest() {
+        // given
+        BodyMatchResultCache bodyMatchResultCache = new BodyMatchResultCache(10, 60000);
+        RegexStringMatcher bodyMatcher = new RegexStringMatcher("some_.*");
+
+        // when
+        bodyMatchResultCache.put(bodyMatcher, bodyDigest, true);
+
+        // then
+        assertThat(bodyMatchResultCache.isEnabled(), is(true));
+        assertThat(bodyMatchResultCache.get(bodyMatcher, bodyDigest), is(true));
+        assertThat(bodyMatchResultCache.get(bodyMatcher, Hashing.sha256().hashString("some_other_body", Charsets.UTF_8)), nullValue());
+    }
+
+    @Test
+    public void shouldCacheEqualBodyMatchersSeparately() {
+        // given
+        BodyMatchResultCache bodyMatchResultCache = new BodyMatchResultCache(10, 60000);
+
+        // when
+        bodyMatchResultCache.put(new RegexStringMatcher("some_.*"), bodyDigest, true);
+
+        // then
+        assertThat(bodyMatchResultCache.get(new RegexStringMatcher("some_.*"), bodyDigest), nullValue());
+    }
+
+    @Test
+    public void shouldClearCachedResults() {
+        // given
+        BodyMatchResultCache bodyMatchResultCache = new BodyMatchResultCache(10, 60000);
+        RegexStringMatcher bodyMatcher = new RegexStringMatcher("some_.*");
+        bodyMatchResultCache.put(bodyMatcher, bodyDigest, true);
+
+        // when
+        bodyMatchResultCache.clear();
+
+        // then
+        assertThat(bodyMatchResultCache.get(bodyMatcher, bodyDigest), nullValue());
+        assertThat(bodyMatchResultCache.size(), is(0L));
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        // given
+        BodyMatchResultCache bodyMatchResultCache = new BodyMatchResultCache(0, 60000);
+        RegexStringMatcher bodyMatcher = new RegexStringMatcher("some_.*");
+
+        // when
+        bodyMatchResultCache.put(bodyMatcher, bodyDigest, true);
+
+        // then
+        assertThat(bodyMatchResultCache.isEnabled(), is(false));
+        assertThat(bodyMatchResultCache.get(bodyMatcher, bodyDigest), nullValue());
+        assertThat(bodyMatchResultCache.size(), is(0L));
+    }
+}
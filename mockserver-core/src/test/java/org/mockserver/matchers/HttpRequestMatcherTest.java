@@ -3,6 +3,9 @@ package org.mockserver.matchers;
 import org.junit.Test;
 import org.mockserver.model.*;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -36,6 +39,51 @@ public class HttpRequestMatcherTest {
         assertFalse(new HttpRequestMatcher(new HttpRequest().withMethod("P[A-Z]{2}")).matches(new HttpRequest().withMethod("POST")));
     }
 
+    @Test
+    public void doesNotEvaluateBodyOrHeadersWhenMethodDoesNotMatch() {
+        // given
+        final AtomicInteger bodyOrHeadersRead = new AtomicInteger();
+        HttpRequest httpRequest = new HttpRequest() {
+            @Override
+            public Body getBody() {
+                bodyOrHeadersRead.incrementAndGet();
+                return super.getBody();
+            }
+
+            @Override
+            public List<Header> getHeaders() {
+                bodyOrHeadersRead.incrementAndGet();
+                return super.getHeaders();
+            }
+        }.withMethod("OPTIONS").withBody(json("{ \"key\": \"some_value\" }"));
+
+        // when
+        boolean matches = new HttpRequestMatcher(new HttpRequest().withMethod("HEAD").withBody(json("{ \"key\": \"some_value\" }")).withHeaders(new Header("name", "value"))).matches(httpRequest);
+
+        // then
+        assertFalse(matches);
+        assertEquals(0, bodyOrHeadersRead.get());
+    }
+
+    @Test
+    public void reusesCachedBodyMatchResultForIdenticalBody() {
+        // given
+        BodyMatchResultCache bodyMatchResultCache = new BodyMatchResultCache(100, 60000);
+        HttpRequestMatcher httpRequestMatcher = new HttpRequestMatcher(new HttpRequest().withBody(regex("some[a-z]{4}")));
+
+        // when
+        boolean firstMatch = httpRequestMatcher.matchesContext(new MatchContext(new HttpRequest().withBody("somebody"), bodyMatchResultCache));
+        boolean secondMatch = httpRequestMatcher.matchesContext(new MatchContext(new HttpRequest().withBody("somebody"), bodyMatchResultCache));
+        boolean differentBodyMatch = httpRequestMatcher.matchesContext(new MatchContext(new HttpRequest().withBody("some_body"), bodyMatchResultCache));
+
+        // then
+        assertTrue(firstMatch);
+        assertTrue(secondMatch);
+        assertFalse(differentBodyMatch);
+        assertEquals(1, bodyMatchResultCache.hitCount());
+        assertEquals(2, bodyMatchResultCache.size());
+    }
+
     @Test
     public void matchesMatchingPath() {
         assertTrue(new HttpRequestMatcher(new HttpRequest().withPath("somePath")).matches(new HttpRequest().withPath("somePath")));
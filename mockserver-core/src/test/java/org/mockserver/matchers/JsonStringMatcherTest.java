@@ -1,14 +1,39 @@
 package org.mockserver.matchers;
 
 import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static org.junit.Assert.*;
+import static org.mockserver.model.HttpRequest.request;
+import static org.skyscreamer.jsonassert.JSONCompare.compareJSON;
 
 /**
  * @author jamesdbloom
  */
 public class JsonStringMatcherTest {
 
+    private static final Logger logger = LoggerFactory.getLogger(JsonStringMatcherTest.class);
+    private static final String[][] EXPECTED_AND_MATCHED = new String[][]{
+            {"{\"id\": 1}", "{\"id\": 1, \"name\": \"one\"}"},
+            {"{\"id\": 1}", "{\"id\": 1.0}"},
+            {"{\"id\": 1}", "{\"id\": \"1\"}"},
+            {"{\"id\": 1}", "{\"other\": 1}"},
+            {"{\"id\": null}", "{\"id\": null}"},
+            {"{\"id\": null}", "{}"},
+            {"{\"enabled\": true}", "{\"enabled\": false}"},
+            {"{\"ids\": [1, 2, 3]}", "{\"ids\": [3, 1, 2]}"},
+            {"{\"ids\": [1, 2]}", "{\"ids\": [1, 2, 3]}"},
+            {"{\"ids\": [1, 1, 2]}", "{\"ids\": [1, 2, 2]}"},
+            {"[{\"id\": 1}, {\"id\": 2}]", "[{\"id\": 2, \"name\": \"two\"}, {\"id\": 1}]"},
+            {"[{\"id\": 1}]", "{\"id\": 1}"},
+            {"{\"nested\": {\"list\": [{\"a\": \"b\"}]}}", "{\"nested\": {\"list\": [{\"a\": \"b\", \"c\": \"d\"}], \"e\": 1}}"},
+            {"{\"nested\": {\"list\": [{\"a\": \"b\"}]}}", "{\"nested\": {\"list\": [{\"a\": \"c\"}]}}"},
+            {"{\"id\": 1}", "not json"},
+            {"{\"id\": 1}", "{\"id\": "}
+    };
+
     @Test
     public void shouldMatchExactMatchingJson() {
         // given
@@ -365,4 +390,63 @@ public class JsonStringMatcherTest {
     public void showHaveCorrectEqualsBehaviour() {
         assertEquals(new JsonStringMatcher("some_value"), new JsonStringMatcher("some_value"));
     }
+
+    @Test
+    public void shouldMatchTheSameAsJsonAssertLenientMode() {
+        for (String[] expectedAndMatched : EXPECTED_AND_MATCHED) {
+            assertEquals("expected [" + expectedAndMatched[0] + "] matched [" + expectedAndMatched[1] + "]",
+                    jsonAssertMatches(expectedAndMatched[0], expectedAndMatched[1]),
+                    new JsonStringMatcher(expectedAndMatched[0]).matches(expectedAndMatched[1])
+            );
+        }
+    }
+
+    @Test
+    public void shouldMatchFasterThanJsonAssert() {
+        // given
+        int iterations = 2000;
+        JsonStringMatcher[] jsonStringMatchers = new JsonStringMatcher[EXPECTED_AND_MATCHED.length];
+        for (int i = 0; i < EXPECTED_AND_MATCHED.length; i++) {
+            jsonStringMatchers[i] = new JsonStringMatcher(EXPECTED_AND_MATCHED[i][0]);
+        }
+
+        // when
+        long jsonAssertStartTime = System.nanoTime();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (String[] expectedAndMatched : EXPECTED_AND_MATCHED) {
+                jsonAssertMatches(expectedAndMatched[0], expectedAndMatched[1]);
+            }
+        }
+        long jsonAssertTime = System.nanoTime() - jsonAssertStartTime;
+        long jsonStringMatcherStartTime = System.nanoTime();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < EXPECTED_AND_MATCHED.length; i++) {
+                jsonStringMatchers[i].matches(EXPECTED_AND_MATCHED[i][1]);
+            }
+        }
+        long jsonStringMatcherTime = System.nanoTime() - jsonStringMatcherStartTime;
+
+        // then - timing depends on the machine so is only logged
+        logger.info("Matched " + (iterations * EXPECTED_AND_MATCHED.length) + " json bodies " + String.format("%.2f", (double) jsonAssertTime / jsonStringMatcherTime) + "x faster than JSONAssert");
+    }
+
+    @Test
+    public void shouldMatchBodyOfMatchContext() {
+        // given
+        MatchContext matchContext = new MatchContext(request().withBody("{\"id\": 1, \"name\": \"one\"}"));
+
+        // then
+        assertTrue(new JsonStringMatcher("{\"id\": 1}").matchesBody(matchContext));
+        assertTrue(new JsonStringMatcher("{\"name\": \"one\"}").matchesBody(matchContext));
+        assertFalse(new JsonStringMatcher("{\"name\": \"two\"}").matchesBody(matchContext));
+        assertFalse(new JsonStringMatcher("{\"id\": 1}").matchesBody(new MatchContext(request().withBody("some_value"))));
+    }
+
+    private boolean jsonAssertMatches(String expected, String matched) {
+        try {
+            return compareJSON(expected, matched, JSONCompareMode.LENIENT).passed();
+        } catch (Exception e) {
+            return false;
+        }
+    }
 }
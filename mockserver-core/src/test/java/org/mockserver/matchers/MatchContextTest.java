@@ -0,0 +1,87 @@
+package org.mockserver.matchers;
+
+import org.junit.Test;
+import org.mockserver.model.Cookie;
+import org.mockserver.model.Header;
+import org.mockserver.model.Parameter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockserver.model.HttpRequest.request;
+
+/**
+ * @author jamesdbloom
+ */
+public class MatchContextTest {
+
+    @Test
+    public void shouldParseEachPartOnlyOnce() {
+        // given
+        MatchContext matchContext = new MatchContext(
+                request()
+                        .withQueryStringParameters(new Parameter("parameterName", "parameterValue"))
+                        .withHeaders(new Header("headerName", "headerValue"))
+                        .withCookies(new Cookie("cookieName", "cookieValue"))
+                        .withBody("some_body")
+        );
+
+        // then
+        assertThat(matchContext.getQueryStringParameters().get("parameterName"), is("parameterValue"));
+        assertThat(matchContext.getQueryStringParameters(), sameInstance(matchContext.getQueryStringParameters()));
+        assertThat(matchContext.getHeaders().get("headerName"), is("headerValue"));
+        assertThat(matchContext.getHeaders(), sameInstance(matchContext.getHeaders()));
+        assertThat(matchContext.getCookies().get("cookieName"), is("cookieValue"));
+        assertThat(matchContext.getCookies(), sameInstance(matchContext.getCookies()));
+        assertThat(matchContext.getBodyAsString(), is("some_body"));
+    }
+
+    @Test
+    public void shouldReturnEmptyBodyWhenNoBody() {
+        assertThat(new MatchContext(request()).getBodyAsString(), is(""));
+    }
+
+    @Test
+    public void shouldParseBodyAsXmlOnlyOnce() {
+        // given
+        MatchContext matchContext = new MatchContext(request().withBody("<element><key>some_key</key></element>"));
+
+        // then
+        assertThat(matchContext.getBodyAsXmlDocument().getDocumentElement().getNodeName(), is("element"));
+        assertThat(matchContext.getBodyAsXmlDocument(), sameInstance(matchContext.getBodyAsXmlDocument()));
+    }
+
+    @Test
+    public void shouldReturnNullXmlDocumentWhenBodyIsNotXml() {
+        assertThat(new MatchContext(request().withBody("some_body")).getBodyAsXmlDocument(), nullValue());
+    }
+
+    @Test
+    public void shouldParseBodyAsJsonOnlyOnce() {
+        // given
+        MatchContext matchContext = new MatchContext(request().withBody("{\"id\": 1}"));
+
+        // then
+        assertThat(matchContext.getBodyAsJson().get("id").intValue(), is(1));
+        assertThat(matchContext.getBodyAsJson(), sameInstance(matchContext.getBodyAsJson()));
+    }
+
+    @Test
+    public void shouldReturnNullJsonWhenBodyIsNotJson() {
+        assertThat(new MatchContext(request().withBody("some_body")).getBodyAsJson(), nullValue());
+        assertThat(new MatchContext(request().withBody("{ not json")).getBodyAsJson(), nullValue());
+    }
+
+    @Test
+    public void shouldReturnSameDigestForSameBody() {
+        // given
+        MatchContext matchContext = new MatchContext(request().withBody("some_body"));
+
+        // then
+        assertThat(matchContext.getBodyDigest(), is(new MatchContext(request().withBody("some_body")).getBodyDigest()));
+        assertThat(matchContext.getBodyDigest(), not(new MatchContext(request().withBody("some_other_body")).getBodyDigest()));
+        assertThat(matchContext.getBodyDigest(), sameInstance(matchContext.getBodyDigest()));
+    }
+}
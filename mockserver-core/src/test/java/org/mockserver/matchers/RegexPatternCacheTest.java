@@ -0,0 +1,82 @@
+package org.mockserver.matchers;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author jamesdbloom
+ */
+public class RegexPatternCacheTest {
+
+    @Test
+    public void shouldCompileOnceAndCountHitsAndMisses() {
+        // given
+        RegexPatternCache regexPatternCache = new RegexPatternCache(10);
+
+        // when
+        Pattern first = regexPatternCache.get("some_[a-z]{5}", false);
+        Pattern second = regexPatternCache.get("some_[a-z]{5}", false);
+
+        // then
+        assertThat(second, sameInstance(first));
+        assertThat(regexPatternCache.missCount(), is(1L));
+        assertThat(regexPatternCache.hitCount(), is(1L));
+        assertThat(regexPatternCache.size(), is(1L));
+    }
+
+    @Test
+    public void shouldCacheCaseSensitiveAndCaseInsensitivePatternsSeparately() {
+        // given
+        RegexPatternCache regexPatternCache = new RegexPatternCache(10);
+
+        // then
+        assertThat(regexPatternCache.get("SOME_VALUE", false).matcher("some_value").matches(), is(false));
+        assertThat(regexPatternCache.get("SOME_VALUE", true).matcher("some_value").matches(), is(true));
+        assertThat(regexPatternCache.size(), is(2L));
+    }
+
+    @Test
+    public void shouldCacheInvalidRegexAsNull() {
+        // given
+        RegexPatternCache regexPatternCache = new RegexPatternCache(10);
+
+        // then
+        assertThat(regexPatternCache.get("/{}", false), nullValue());
+        assertThat(regexPatternCache.get("/{}", false), nullValue());
+        assertThat(regexPatternCache.missCount(), is(1L));
+        assertThat(regexPatternCache.hitCount(), is(1L));
+    }
+
+    @Test
+    public void shouldEvictWhenFull() {
+        // given
+        RegexPatternCache regexPatternCache = new RegexPatternCache(2);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            regexPatternCache.get("some_value_" + i, false);
+        }
+
+        // then
+        assertThat(regexPatternCache.size() <= 2, is(true));
+    }
+
+    @Test
+    public void shouldNotCacheLongValues() {
+        // given
+        RegexPatternCache regexPatternCache = new RegexPatternCache(10);
+
+        // when
+        regexPatternCache.get(Strings.repeat("a", RegexPatternCache.MAXIMUM_CACHED_REGEX_LENGTH + 1), false);
+
+        // then
+        assertThat(regexPatternCache.size(), is(0L));
+    }
+}
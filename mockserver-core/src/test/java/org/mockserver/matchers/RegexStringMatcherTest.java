@@ -2,6 +2,7 @@ package org.mockserver.matchers;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -66,4 +67,77 @@ public class RegexStringMatcherTest {
     public void shouldHandleIllegalRegexPatternForTest() {
         assertFalse(new RegexStringMatcher("some_value").matches("/{}"));
     }
+
+    @Test
+    public void shouldMatchInBothDirections() {
+        assertTrue(RegexStringMatcher.matches("some_value", "some_[a-z]{5}", false));
+        assertTrue(RegexStringMatcher.matches("some_[a-z]{5}", "some_value", false));
+        assertTrue(new RegexStringMatcher("some_value").matches("some_[a-z]{5}"));
+    }
+
+    @Test
+    public void shouldMatchIgnoringCase() {
+        assertTrue(RegexStringMatcher.matches("Some_[A-Z]{5}", "SOME_value", true));
+        assertTrue(RegexStringMatcher.matches("SOME_value", "Some_[A-Z]{5}", true));
+        assertFalse(RegexStringMatcher.matches("Some_[A-Z]{5}", "SOME_value", false));
+    }
+
+    @Test
+    public void shouldUsePatternCacheForRepeatedComparisons() {
+        // given
+        long hitCount = RegexStringMatcher.patternCache().hitCount();
+
+        // when
+        RegexStringMatcher.matches("some_cached_[a-z]{5}", "some_cached_value", false);
+        RegexStringMatcher.matches("some_cached_[a-z]{5}", "some_cached_value", false);
+
+        // then
+        assertTrue(RegexStringMatcher.patternCache().hitCount() > hitCount);
+    }
+
+    @Test
+    public void shouldReturnLiteralPrefix() {
+        assertEquals("/some/path", RegexStringMatcher.literalPrefix("/some/path"));
+        assertEquals("/some/path", RegexStringMatcher.literalPrefix("/some/path.*"));
+        assertEquals("/some/path", RegexStringMatcher.literalPrefix("/some/paths?"));
+        assertEquals("/some/pat", RegexStringMatcher.literalPrefix("/some/path*"));
+        assertEquals("/some/pat", RegexStringMatcher.literalPrefix("/some/path{0,1}"));
+        assertEquals("/some/path", RegexStringMatcher.literalPrefix("/some/path+"));
+        assertEquals("/some/", RegexStringMatcher.literalPrefix("/some/[a-z]+"));
+        assertEquals("", RegexStringMatcher.literalPrefix("/some/path|/other/path"));
+        assertEquals("", RegexStringMatcher.literalPrefix("(?i)/some/path"));
+        assertEquals("", RegexStringMatcher.literalPrefix(""));
+    }
+
+    @Test
+    public void shouldIdentifyLiterals() {
+        assertTrue(RegexStringMatcher.isLiteral("/some/path"));
+        assertTrue(RegexStringMatcher.isLiteral(""));
+        assertFalse(RegexStringMatcher.isLiteral("/some/path.html"));
+        assertFalse(RegexStringMatcher.isLiteral("some_[a-z]{5}"));
+        assertFalse(RegexStringMatcher.isLiteral(null));
+    }
+
+    @Test
+    public void shouldMatchLiteralIgnoringCase() {
+        assertTrue(new RegexStringMatcher("Some_Value", true).matches("some_value"));
+        assertFalse(new RegexStringMatcher("Some_Value", false).matches("some_value"));
+        assertFalse(new RegexStringMatcher("Some_Value", true).matches("some_other_value"));
+    }
+
+    @Test
+    public void shouldMatchPrefix() {
+        assertTrue(new RegexStringMatcher("/some/path.*").matches("/some/path"));
+        assertTrue(new RegexStringMatcher("/some/path.*").matches("/some/path/and/more"));
+        assertFalse(new RegexStringMatcher("/some/path.*").matches("/some/pat"));
+        assertFalse(new RegexStringMatcher("/some/path.*").matches("/some/path\nand/more"));
+        assertTrue(new RegexStringMatcher("/some/path.*", true).matches("/SOME/PATH/and/more"));
+    }
+
+    @Test
+    public void shouldMatchLiteralAgainstRegexTest() {
+        assertTrue(new RegexStringMatcher("/some/path").matches("/some/.*"));
+        assertTrue(new RegexStringMatcher("/some/path.*").matches("/some/path.*"));
+        assertFalse(new RegexStringMatcher("/some/path").matches("/other/.*"));
+    }
 }
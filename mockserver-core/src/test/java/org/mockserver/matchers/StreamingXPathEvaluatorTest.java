@@ -0,0 +1,59 @@
+package org.mockserver.matchers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jamesdbloom
+ */
+public class StreamingXPathEvaluatorTest {
+
+    @Test
+    public void shouldOnlySupportSimpleAbsoluteLocationPaths() {
+        assertTrue(StreamingXPathEvaluator.isSupported("/element"));
+        assertTrue(StreamingXPathEvaluator.isSupported("/Envelope/Body/get-quote_v1.0"));
+        assertFalse(StreamingXPathEvaluator.isSupported(null));
+        assertFalse(StreamingXPathEvaluator.isSupported(""));
+        assertFalse(StreamingXPathEvaluator.isSupported("element/key"));
+        assertFalse(StreamingXPathEvaluator.isSupported("//key"));
+        assertFalse(StreamingXPathEvaluator.isSupported("/element/*"));
+        assertFalse(StreamingXPathEvaluator.isSupported("/element[key = 'some_key']"));
+        assertFalse(StreamingXPathEvaluator.isSupported("/soap:Envelope"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateEvaluatorForUnsupportedExpression() {
+        new StreamingXPathEvaluator("//key");
+    }
+
+    @Test
+    public void shouldFindPathInNestedElements() {
+        String matched = "" +
+                "<element>" +
+                "   <other><key>other_key</key></other>" +
+                "   <key><value>some_value</value></key>" +
+                "</element>";
+        assertTrue(new StreamingXPathEvaluator("/element").exists(matched));
+        assertTrue(new StreamingXPathEvaluator("/element/key").exists(matched));
+        assertTrue(new StreamingXPathEvaluator("/element/key/value").exists(matched));
+        assertTrue(new StreamingXPathEvaluator("/element/other/key").exists(matched));
+        assertFalse(new StreamingXPathEvaluator("/element/value").exists(matched));
+        assertFalse(new StreamingXPathEvaluator("/key").exists(matched));
+        assertFalse(new StreamingXPathEvaluator("/element/other/key/value").exists(matched));
+    }
+
+    @Test
+    public void shouldIgnoreDefaultNamespaceButNotPrefixedElements() {
+        assertTrue(new StreamingXPathEvaluator("/Envelope/Body").exists("<Envelope xmlns=\"urn:some\"><Body/></Envelope>"));
+        assertFalse(new StreamingXPathEvaluator("/Envelope/Body").exists("<soap:Envelope xmlns:soap=\"urn:some\"><soap:Body/></soap:Envelope>"));
+    }
+
+    @Test
+    public void shouldNotMatchXmlThatIsNotWellFormed() {
+        assertFalse(new StreamingXPathEvaluator("/element/key").exists("<element><key></element>"));
+        assertFalse(new StreamingXPathEvaluator("/element").exists("some_value"));
+        assertFalse(new StreamingXPathEvaluator("/element").exists(""));
+    }
+}
@@ -31,4 +31,17 @@ public class TimesTest {
         times.decrement().decrement();
         assertThat(times.greaterThenZero(), is(false));
     }
+
+    @Test
+    public void shouldOnlyDecrementWhileGreaterThenZero() {
+        // given
+        Times times = Times.exactly(2);
+
+        // then
+        assertThat(times.tryDecrement(), is(true));
+        assertThat(times.tryDecrement(), is(true));
+        assertThat(times.tryDecrement(), is(false));
+        assertThat(times.getRemainingTimes(), is(0));
+        assertThat(Times.unlimited().tryDecrement(), is(true));
+    }
 }
@@ -1,10 +1,12 @@
 package org.mockserver.matchers;
 
 import org.junit.Test;
+import org.mockserver.configuration.SystemProperties;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockserver.model.HttpRequest.request;
 
 /**
  * @author jamesdbloom
@@ -67,4 +69,47 @@ public class XPathStringMatcherTest {
     public void showHaveCorrectEqualsBehaviour(){
         assertEquals(new XPathStringMatcher("some_value"), new XPathStringMatcher("some_value"));
     }
+
+    @Test
+    public void shouldMatchBodyOfMatchContext() {
+        // given
+        MatchContext matchContext = new MatchContext(request().withBody("" +
+                "<element>" +
+                "   <key>some_key</key>" +
+                "   <value>some_value</value>" +
+                "</element>"));
+
+        // then
+        assertTrue(new XPathStringMatcher("/element[key = 'some_key']").matchesBody(matchContext));
+        assertTrue(new XPathStringMatcher("/element/value").matchesBody(matchContext));
+        assertFalse(new XPathStringMatcher("/element/not_key").matchesBody(matchContext));
+        assertTrue(new XPathStringMatcher("/element/value").matchesBody(new MatchContext(request().withBody("/element/value"))));
+        assertFalse(new XPathStringMatcher("/element/value").matchesBody(new MatchContext(request().withBody("some_value"))));
+    }
+
+    @Test
+    public void shouldMatchSimplePathUsingStreamingEvaluation() {
+        String matched = "" +
+                "<element>" +
+                "   <key>some_key</key>" +
+                "   <value>some_value</value>" +
+                "</element>";
+        String originalValue = System.getProperty("mockserver.xpathStreamingEvaluation");
+        try {
+            // given
+            SystemProperties.xpathStreamingEvaluation(true);
+
+            // then
+            assertTrue(new XPathStringMatcher("/element/key").matches(matched));
+            assertFalse(new XPathStringMatcher("/element/not_key").matches(matched));
+            assertTrue(new XPathStringMatcher("/element[key = 'some_key']").matches(matched));
+            assertFalse(new XPathStringMatcher("/element[key = 'some_other_key']").matches(matched));
+        } finally {
+            if (originalValue != null) {
+                System.setProperty("mockserver.xpathStreamingEvaluation", originalValue);
+            } else {
+                System.clearProperty("mockserver.xpathStreamingEvaluation");
+            }
+        }
+    }
 }
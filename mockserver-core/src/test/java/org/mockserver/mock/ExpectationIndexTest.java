@@ -0,0 +1,51 @@
+package org.mockserver.mock;
+
+import org.junit.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.HttpRequest;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockserver.model.HttpRequest.request;
+
+/**
+ * @author jamesdbloom
+ */
+public class ExpectationIndexTest {
+
+    @Test
+    public void shouldReturnCandidatesForMethodAndPathInRegistrationOrder() {
+        // given
+        Expectation wildcard = new Expectation(request(), Times.unlimited());
+        Expectation getSomePath = new Expectation(request().withMethod("GET").withPath("/some/path"), Times.unlimited());
+        Expectation postSomePath = new Expectation(request().withMethod("POST").withPath("/some/path"), Times.unlimited());
+        Expectation anyMethodRegexPath = new Expectation(request().withMethod("P.*").withPath("/some/.*"), Times.unlimited());
+        Expectation getOtherPath = new Expectation(request().withMethod("GET").withPath("/other/path"), Times.unlimited());
+        Expectation nullRequest = new Expectation(null, Times.unlimited());
+
+        // when
+        ExpectationIndex expectationIndex = new ExpectationIndex(Arrays.asList(wildcard, getSomePath, postSomePath, anyMethodRegexPath, getOtherPath, nullRequest));
+
+        // then
+        assertEquals(Arrays.asList(wildcard, getSomePath, anyMethodRegexPath, nullRequest), expectationIndex.candidates(request().withMethod("GET").withPath("/some/path")));
+        assertEquals(Arrays.asList(wildcard, postSomePath, anyMethodRegexPath, nullRequest), expectationIndex.candidates(request().withMethod("POST").withPath("/some/path")));
+        assertEquals(Arrays.asList(wildcard, getOtherPath, nullRequest), expectationIndex.candidates(request().withMethod("GET").withPath("/other/path")));
+        assertEquals(Arrays.asList(wildcard, nullRequest), expectationIndex.candidates(request().withMethod("DELETE").withPath("/unknown")));
+        assertEquals(Arrays.asList(wildcard, getSomePath, postSomePath, anyMethodRegexPath, getOtherPath, nullRequest), expectationIndex.candidates(null));
+    }
+
+    @Test
+    public void shouldReturnCandidatesWhenRequestPathIsRegex() {
+        // given
+        Expectation somePath = new Expectation(request().withPath("/some/path"), Times.unlimited());
+        Expectation otherPath = new Expectation(request().withPath("/other/path"), Times.unlimited());
+
+        // when
+        ExpectationIndex expectationIndex = new ExpectationIndex(Arrays.asList(somePath, otherPath));
+
+        // then
+        assertEquals(Arrays.asList(somePath), expectationIndex.candidates(request().withPath("/some/.*")));
+        assertEquals(Arrays.asList(somePath, otherPath), expectationIndex.candidates(request().withPath(".*/path")));
+    }
+}
@@ -4,8 +4,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockserver.model.*;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author jamesdbloom
@@ -32,6 +35,20 @@ public class MockServerMatcherBasicResponsesTest {
         assertEquals(httpResponse, mockServerMatcher.handle(new HttpRequest().withPath("somePath")));
     }
 
+    @Test
+    public void returnDelayWithoutApplyingIt() {
+        // given
+        mockServerMatcher.when(httpRequest.withPath("somePath")).thenRespond(httpResponse.withBody("someBody").withDelay(new Delay(TimeUnit.SECONDS, 10)));
+
+        // when
+        long startTime = System.currentTimeMillis();
+        Action action = mockServerMatcher.handle(new HttpRequest().withPath("somePath"));
+
+        // then
+        assertTrue(System.currentTimeMillis() - startTime < TimeUnit.SECONDS.toMillis(10));
+        assertEquals(new Delay(TimeUnit.SECONDS, 10), ((HttpResponse) action).getDelay());
+    }
+
     @Test
     public void respondWhenRegexPathMatches() {
         // when
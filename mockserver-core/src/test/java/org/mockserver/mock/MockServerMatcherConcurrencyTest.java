@@ -0,0 +1,154 @@
+package org.mockserver.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author jamesdbloom
+ */
+public class MockServerMatcherConcurrencyTest {
+
+    private MockServerMatcher mockServerMatcher;
+
+    @Before
+    public void prepareTestFixture() {
+        mockServerMatcher = new MockServerMatcher();
+    }
+
+    @Test
+    public void shouldNotExceedTimesWhenHandledConcurrently() throws Exception {
+        // given
+        HttpResponse httpResponse = new HttpResponse().withBody("somebody");
+        mockServerMatcher.when(new HttpRequest().withPath("somepath"), Times.exactly(500)).thenRespond(httpResponse);
+        final AtomicInteger matched = new AtomicInteger();
+
+        // when
+        runConcurrently(8, 200, new Runnable() {
+            public void run() {
+                if (mockServerMatcher.handle(new HttpRequest().withPath("somepath")) != null) {
+                    matched.incrementAndGet();
+                }
+            }
+        });
+
+        // then
+        assertThat(matched.get(), is(500));
+        assertArrayEquals(new Expectation[]{}, mockServerMatcher.expectations.toArray());
+    }
+
+    @Test
+    public void shouldMatchWhileExpectationsAreAddedAndCleared() throws Exception {
+        // given
+        final HttpResponse httpResponse = new HttpResponse().withBody("somebody");
+        mockServerMatcher.when(new HttpRequest().withPath("somepath"), Times.unlimited()).thenRespond(httpResponse);
+        final AtomicInteger unmatched = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+
+        // when
+        runConcurrently(8, 500, new Runnable() {
+            public void run() {
+                if (writes.incrementAndGet() % 10 == 0) {
+                    mockServerMatcher.when(new HttpRequest().withPath("otherpath_" + writes.get()), Times.once()).thenRespond(httpResponse);
+                    mockServerMatcher.clear(new HttpRequest().withPath("otherpath_" + writes.get()));
+                }
+                if (mockServerMatcher.handle(new HttpRequest().withPath("somepath")) == null) {
+                    unmatched.incrementAndGet();
+                }
+            }
+        });
+
+        // then
+        assertThat(unmatched.get(), is(0));
+    }
+
+    @Test
+    public void shouldNotLoseTimesDecrementsAcrossExpectationsWhenHandledConcurrently() throws Exception {
+        // given
+        mockServerMatcher.when(new HttpRequest().withPath("somepath"), Times.exactly(300)).thenRespond(new HttpResponse().withBody("somebody_one"));
+        mockServerMatcher.when(new HttpRequest().withPath("somepath"), Times.exactly(300)).thenRespond(new HttpResponse().withBody("somebody_two"));
+        final AtomicInteger matchedOne = new AtomicInteger();
+        final AtomicInteger matchedTwo = new AtomicInteger();
+        final AtomicInteger unmatched = new AtomicInteger();
+
+        // when
+        runConcurrently(8, 100, new Runnable() {
+            public void run() {
+                HttpResponse httpResponse = (HttpResponse) mockServerMatcher.handle(new HttpRequest().withPath("somepath"));
+                if (httpResponse == null) {
+                    unmatched.incrementAndGet();
+                } else if (httpResponse.getBodyAsString().equals("somebody_one")) {
+                    matchedOne.incrementAndGet();
+                } else {
+                    matchedTwo.incrementAndGet();
+                }
+            }
+        });
+
+        // then
+        assertThat(matchedOne.get(), is(300));
+        assertThat(matchedTwo.get(), is(300));
+        assertThat(unmatched.get(), is(200));
+        assertArrayEquals(new Expectation[]{}, mockServerMatcher.expectations.toArray());
+    }
+
+    @Test
+    public void shouldMatchWhileExpectationsAreReset() throws Exception {
+        // given
+        final HttpResponse httpResponse = new HttpResponse().withBody("somebody");
+        final AtomicInteger writes = new AtomicInteger();
+
+        // when
+        runConcurrently(8, 500, new Runnable() {
+            public void run() {
+                if (writes.incrementAndGet() % 10 == 0) {
+                    mockServerMatcher.reset();
+                    mockServerMatcher.when(new HttpRequest().withPath("somepath"), Times.unlimited()).thenRespond(httpResponse);
+                }
+                mockServerMatcher.handle(new HttpRequest().withPath("somepath"));
+            }
+        });
+
+        // then - any exception thrown while matching, such as a ConcurrentModificationException, fails the test
+        mockServerMatcher.reset();
+        mockServerMatcher.when(new HttpRequest().withPath("somepath"), Times.unlimited()).thenRespond(httpResponse);
+        assertThat(mockServerMatcher.handle(new HttpRequest().withPath("somepath")), notNullValue());
+    }
+
+    private void runConcurrently(int threads, final int iterations, final Runnable runnable) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        startLatch.await();
+                        for (int j = 0; j < iterations; j++) {
+                            runnable.run();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
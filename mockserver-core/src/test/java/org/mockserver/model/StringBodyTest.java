@@ -0,0 +1,51 @@
+package org.mockserver.model;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author jamesdbloom
+ */
+public class StringBodyTest {
+
+    @Test
+    public void shouldReturnValueSetInConstructor() {
+        // when
+        StringBody stringBody = new StringBody("some_body", Body.Type.REGEX);
+
+        // then
+        assertThat(stringBody.getValue(), is("some_body"));
+        assertThat(stringBody.getType(), is(Body.Type.REGEX));
+    }
+
+    @Test
+    public void shouldDecodeBytesWhenValueIsNeeded() {
+        // when
+        StringBody stringBody = new StringBody("some_bödy".getBytes(Charsets.UTF_8), Charsets.UTF_8);
+
+        // then
+        assertThat(stringBody.getValue(), is("some_bödy"));
+        assertThat(stringBody.toString(), is("some_bödy"));
+        assertThat(stringBody.getType(), is(Body.Type.STRING));
+    }
+
+    @Test
+    public void shouldBeEqualToStringBodyWithSameValue() {
+        assertEquals(new StringBody("some_body"), new StringBody("some_body".getBytes(Charsets.UTF_8), Charsets.UTF_8));
+        assertEquals(new StringBody("some_body".getBytes(Charsets.UTF_8), Charsets.UTF_8), new StringBody("some_body"));
+        assertEquals(new StringBody("some_body").hashCode(), new StringBody("some_body".getBytes(Charsets.UTF_8), Charsets.UTF_8).hashCode());
+        assertFalse(new StringBody("some_body").equals(new StringBody("some_other_body".getBytes(Charsets.UTF_8), Charsets.UTF_8)));
+    }
+
+    @Test
+    public void shouldHandleNullValue() {
+        assertNull(new StringBody(null).getValue());
+        assertNull(new StringBody(null).toString());
+    }
+}
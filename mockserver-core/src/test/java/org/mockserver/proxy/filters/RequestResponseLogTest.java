@@ -0,0 +1,177 @@
+package org.mockserver.proxy.filters;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author jamesdbloom
+ */
+public class RequestResponseLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private RequestResponseLog requestResponseLog;
+
+    @After
+    public void clearLog() {
+        if (requestResponseLog != null) {
+            requestResponseLog.clear();
+        }
+    }
+
+    private List<HttpResponse> responses(HttpRequest httpRequest) {
+        final List<HttpResponse> httpResponses = new ArrayList<HttpResponse>();
+        requestResponseLog.visit(httpRequest, new RequestResponseLog.Visitor() {
+            public void visit(HttpRequest loggedHttpRequest, HttpResponse loggedHttpResponse) {
+                httpResponses.add(loggedHttpResponse);
+            }
+        });
+        return httpResponses;
+    }
+
+    @Test
+    public void shouldGroupResponsesByRequest() {
+        // given
+        requestResponseLog = new RequestResponseLog(1024, 2, temporaryFolder.getRoot());
+        HttpRequest httpRequest = new HttpRequest().withMethod("GET").withPath("some_path");
+        HttpRequest otherHttpRequest = new HttpRequest().withMethod("POST").withPath("some_path").withBody("some_body");
+
+        // when
+        requestResponseLog.add(httpRequest, new HttpResponse().withBody("one"));
+        requestResponseLog.add(otherHttpRequest, new HttpResponse().withBody("two"));
+        requestResponseLog.add(httpRequest, new HttpResponse().withBody("three"));
+
+        // then
+        assertThat(requestResponseLog.requests(null), is(Arrays.asList(httpRequest, otherHttpRequest)));
+        assertThat(responses(null), is(Arrays.asList(
+                new HttpResponse().withBody("one"),
+                new HttpResponse().withBody("three"),
+                new HttpResponse().withBody("two")
+        )));
+    }
+
+    @Test
+    public void shouldMatchOnMethodPathAndBody() {
+        // given
+        requestResponseLog = new RequestResponseLog(1024, 2, temporaryFolder.getRoot());
+        HttpRequest httpRequest = new HttpRequest().withMethod("GET").withPath("some_path");
+        HttpRequest otherHttpRequest = new HttpRequest().withMethod("POST").withPath("some_path").withBody("some_body");
+
+        // when
+        requestResponseLog.add(httpRequest, new HttpResponse().withBody("one"));
+        requestResponseLog.add(otherHttpRequest, new HttpResponse().withBody("two"));
+
+        // then
+        assertThat(requestResponseLog.requests(new HttpRequest().withPath("some_path")), is(Arrays.asList(httpRequest, otherHttpRequest)));
+        assertThat(requestResponseLog.requests(new HttpRequest().withMethod("POST")), is(Arrays.asList(otherHttpRequest)));
+        assertThat(requestResponseLog.requests(new HttpRequest().withBody("some_body")), is(Arrays.asList(otherHttpRequest)));
+        assertThat(responses(new HttpRequest().withMethod("GET").withPath("some_.*")), is(Arrays.asList(new HttpResponse().withBody("one"))));
+        assertThat(responses(new HttpRequest().withPath("some_other_path")), is(Arrays.<HttpResponse>asList()));
+    }
+
+    @Test
+    public void shouldRemoveMatchingRequests() {
+        // given
+        requestResponseLog = new RequestResponseLog(1024, 2, temporaryFolder.getRoot());
+        HttpRequest httpRequest = new HttpRequest().withPath("some_path");
+        HttpRequest otherHttpRequest = new HttpRequest().withPath("some_other_path");
+        requestResponseLog.add(httpRequest, new HttpResponse().withBody("one"));
+        requestResponseLog.add(otherHttpRequest, new HttpResponse().withBody("two"));
+
+        // when
+        requestResponseLog.remove(new HttpRequest().withPath("some_path"));
+        requestResponseLog.add(httpRequest, new HttpResponse().withBody("three"));
+
+        // then
+        assertThat(requestResponseLog.requests(null), is(Arrays.asList(otherHttpRequest, httpRequest)));
+        assertThat(responses(null), is(Arrays.asList(
+                new HttpResponse().withBody("two"),
+                new HttpResponse().withBody("three")
+        )));
+    }
+
+    @Test
+    public void shouldDropOldestSegmentWhenFull() {
+        // given
+        requestResponseLog = new RequestResponseLog(1024, 2, temporaryFolder.getRoot());
+        char[] body = new char[400];
+        Arrays.fill(body, 'a');
+        HttpRequest httpRequest = new HttpRequest().withPath("some_path");
+
+        // when - each segment only has space for one exchange of each request
+        for (int i = 0; i < 5; i++) {
+            requestResponseLog.add(httpRequest, new HttpResponse().withBody(i + new String(body)));
+            requestResponseLog.add(new HttpRequest().withPath("path_" + i), new HttpResponse().withBody("" + i));
+        }
+
+        // then
+        List<String> bodies = new ArrayList<String>();
+        for (HttpResponse httpResponse : responses(new HttpRequest().withPath("some_path"))) {
+            bodies.add(httpResponse.getBodyAsString().substring(0, 1));
+        }
+        assertThat(bodies, is(Arrays.asList("3", "4")));
+        assertThat(requestResponseLog.requests(new HttpRequest().withPath("path_.*")), is(Arrays.asList(
+                new HttpRequest().withPath("path_3"),
+                new HttpRequest().withPath("path_4")
+        )));
+    }
+
+    @Test
+    public void shouldRecordExchangeLargerThanSegment() {
+        // given
+        requestResponseLog = new RequestResponseLog(64, 2, temporaryFolder.getRoot());
+        char[] body = new char[4096];
+        Arrays.fill(body, 'a');
+        HttpRequest httpRequest = new HttpRequest().withPath("some_path").withBody(new String(body));
+
+        // when
+        requestResponseLog.add(httpRequest, new HttpResponse().withBody(new String(body)));
+
+        // then
+        assertThat(requestResponseLog.requests(null), is(Arrays.asList(httpRequest)));
+        assertThat(responses(null), is(Arrays.asList(new HttpResponse().withBody(new String(body)))));
+    }
+
+    @Test
+    public void shouldClearLog() {
+        // given
+        requestResponseLog = new RequestResponseLog(1024, 2, temporaryFolder.getRoot());
+        requestResponseLog.add(new HttpRequest().withPath("some_path"), new HttpResponse());
+
+        // when
+        requestResponseLog.clear();
+        requestResponseLog.add(new HttpRequest().withPath("some_other_path"), new HttpResponse());
+
+        // then
+        assertThat(requestResponseLog.requests(null), is(Arrays.asList(new HttpRequest().withPath("some_other_path"))));
+    }
+
+    @Test
+    public void shouldCreateSegmentsInDirectoryAndDeleteThemWhenCleared() {
+        // given
+        requestResponseLog = new RequestResponseLog(1024, 2, temporaryFolder.getRoot());
+
+        // when
+        requestResponseLog.add(new HttpRequest().withPath("some_path"), new HttpResponse());
+
+        // then
+        assertThat(temporaryFolder.getRoot().list().length, is(1));
+
+        // when
+        requestResponseLog.clear();
+
+        // then
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+}
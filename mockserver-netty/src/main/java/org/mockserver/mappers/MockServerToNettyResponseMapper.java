@@ -1,10 +1,13 @@
 package org.mockserver.mappers;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.*;
-import org.mockserver.client.serialization.Base64Converter;
 import org.mockserver.model.BinaryBody;
+import org.mockserver.model.Body;
 import org.mockserver.model.Cookie;
 import org.mockserver.model.Header;
 import org.mockserver.model.HttpResponse;
@@ -12,6 +15,8 @@ import org.mockserver.model.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
 
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaders.Names.SET_COOKIE;
 
 /**
@@ -19,6 +24,10 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.SET_COOKIE;
  */
 public class MockServerToNettyResponseMapper {
 
+    // weak keys are compared by identity so each body instance is encoded separately
+    private final Cache<Body<?>, ByteBuf> encodedBodies = CacheBuilder.newBuilder().weakKeys().build();
+    private final Cache<HttpResponse, CompiledResponse> compiledResponses = CacheBuilder.newBuilder().weakKeys().build();
+
     public DefaultFullHttpResponse mapMockServerResponseToNettyResponse(HttpResponse httpResponse) {
         if (httpResponse != null) {
             DefaultFullHttpResponse defaultFullHttpResponse = new DefaultFullHttpResponse(
@@ -34,19 +43,97 @@ public class MockServerToNettyResponseMapper {
         }
     }
 
+    /**
+     * Maps the status code, headers and cookies of a response whose body is written after it as chunks
+     */
+    public DefaultHttpResponse mapMockServerResponseHeadToNettyResponse(HttpResponse httpResponse) {
+        DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(
+                HttpVersion.HTTP_1_1,
+                HttpResponseStatus.valueOf((httpResponse.getStatusCode() != null ? httpResponse.getStatusCode() : 200))
+        );
+        setHeaders(httpResponse, defaultHttpResponse);
+        setCookies(httpResponse, defaultHttpResponse);
+        HttpHeaders.setTransferEncodingChunked(defaultHttpResponse);
+        return defaultHttpResponse;
+    }
+
+    /**
+     * Encodes the response body once into a read only buffer that is shared by every response mapped from the
+     * same body, so expectations that are returned repeatedly are not encoded and copied for each request
+     *
+     * Bodies are held by weak reference so a body is released when its expectation is removed
+     */
+    public void cacheBody(HttpResponse httpResponse) {
+        if (httpResponse != null && httpResponse.getBody() != null) {
+            encodedBodies.put(httpResponse.getBody(), Unpooled.unreleasableBuffer(Unpooled.unmodifiableBuffer(encodeBody(httpResponse.getBody()))));
+        }
+    }
+
+    /**
+     * Encodes the complete HTTP/1.1 response, status line, headers and body, once for keep-alive connections and once
+     * for connections that are closed, so the response can be written without being mapped or encoded for each request
+     *
+     * Responses are held by weak reference so a response is released when its expectation is removed
+     */
+    public void compileResponse(HttpResponse httpResponse) {
+        if (httpResponse != null) {
+            cacheBody(httpResponse);
+            compiledResponses.put(httpResponse, new CompiledResponse(encodeResponse(httpResponse, true), encodeResponse(httpResponse, false)));
+        }
+    }
+
+    /**
+     * @return the complete encoded response with the Connection header for the connection or null if the response has not been compiled
+     */
+    public ByteBuf compiledResponse(HttpResponse httpResponse, boolean isKeepAlive) {
+        CompiledResponse compiledResponse = (httpResponse != null ? compiledResponses.getIfPresent(httpResponse) : null);
+        if (compiledResponse != null) {
+            return (isKeepAlive ? compiledResponse.keepAlive : compiledResponse.close).duplicate();
+        }
+        return null;
+    }
+
+    private ByteBuf encodeResponse(HttpResponse httpResponse, boolean isKeepAlive) {
+        DefaultFullHttpResponse response = mapMockServerResponseToNettyResponse(httpResponse);
+        response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
+        response.headers().set(CONNECTION, isKeepAlive ? HttpHeaders.Values.KEEP_ALIVE : HttpHeaders.Values.CLOSE);
+        // use the same encoder as the pipeline so the bytes are exactly those that would otherwise be written
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        channel.writeOutbound(response);
+        channel.finish();
+        ByteBuf encoded = Unpooled.buffer();
+        for (Object buffer = channel.readOutbound(); buffer != null; buffer = channel.readOutbound()) {
+            encoded.writeBytes((ByteBuf) buffer);
+            ((ByteBuf) buffer).release();
+        }
+        return Unpooled.unreleasableBuffer(Unpooled.unmodifiableBuffer(encoded));
+    }
+
     private ByteBuf getBody(HttpResponse httpResponse) {
-        ByteBuf content = Unpooled.buffer(0);
-        if (httpResponse.getBodyAsString() != null) {
-            if (httpResponse.getBody() instanceof BinaryBody) {
-                content = Unpooled.copiedBuffer(Base64Converter.base64StringToBytes(httpResponse.getBodyAsString()));
+        if (httpResponse.getBody() != null) {
+            ByteBuf encodedBody = encodedBodies.getIfPresent(httpResponse.getBody());
+            if (encodedBody != null) {
+                // independent indexes over the same bytes, releasing the response does not release the shared buffer
+                return encodedBody.duplicate();
             } else {
-                content = Unpooled.copiedBuffer(httpResponse.getBodyAsString().getBytes());
+                return encodeBody(httpResponse.getBody());
             }
         }
-        return content;
+        return Unpooled.buffer(0);
+    }
+
+    private ByteBuf encodeBody(Body<?> body) {
+        if (body instanceof BinaryBody) {
+            byte[] bytes = ((BinaryBody) body).getValue();
+            return (bytes != null ? Unpooled.wrappedBuffer(bytes) : Unpooled.buffer(0));
+        } else if (body.toString() != null) {
+            return Unpooled.wrappedBuffer(body.toString().getBytes());
+        } else {
+            return Unpooled.buffer(0);
+        }
     }
 
-    private void setHeaders(HttpResponse httpResponse, DefaultFullHttpResponse httpServletResponse) {
+    private void setHeaders(HttpResponse httpResponse, HttpMessage httpServletResponse) {
         if (httpResponse.getHeaders() != null) {
             for (Header header : httpResponse.getHeaders()) {
                 for (String value : header.getValues()) {
@@ -56,7 +143,7 @@ public class MockServerToNettyResponseMapper {
         }
     }
 
-    private void setCookies(HttpResponse httpResponse, DefaultFullHttpResponse httpServletResponse) {
+    private void setCookies(HttpResponse httpResponse, HttpMessage httpServletResponse) {
         if (httpResponse.getCookies() != null) {
             List<String> cookieValues = new ArrayList<String>();
             for (Cookie cookie : httpResponse.getCookies()) {
@@ -69,4 +156,14 @@ public class MockServerToNettyResponseMapper {
             }
         }
     }
+
+    private static class CompiledResponse {
+        private final ByteBuf keepAlive;
+        private final ByteBuf close;
+
+        private CompiledResponse(ByteBuf keepAlive, ByteBuf close) {
+            this.keepAlive = keepAlive;
+            this.close = close;
+        }
+    }
 }
@@ -51,11 +51,10 @@ public class NettyToMockServerRequestMapper {
     }
 
     private void setBody(HttpRequest httpRequest, NettyHttpRequest mockServerHttpRequest) {
-        if (mockServerHttpRequest.content() != null) {
-            byte[] bodyBytes = new byte[mockServerHttpRequest.content().readableBytes()];
-            mockServerHttpRequest.content().readBytes(bodyBytes);
+        byte[] bodyBytes = mockServerHttpRequest.contentBytes();
+        if (bodyBytes != null) {
             httpRequest.setRawBodyBytes(bodyBytes);
-            httpRequest.withBody(new StringBody(new String(bodyBytes, Charsets.UTF_8), Body.Type.STRING));
+            httpRequest.withBody(new StringBody(bodyBytes, Charsets.UTF_8));
         }
     }
 
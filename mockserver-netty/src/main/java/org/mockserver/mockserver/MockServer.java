@@ -3,15 +3,19 @@ package org.mockserver.mockserver;
 import com.google.common.util.concurrent.SettableFuture;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.mock.MockServerMatcher;
 import org.mockserver.proxy.filters.LogFilter;
+import org.mockserver.socket.NettyTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,6 +32,8 @@ public class MockServer {
     // netty
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
+    private EventExecutorGroup actionHandlerGroup;
+    private ExecutorService streamingExecutor;
 
     /**
      * Start the instance using the ports provided
@@ -41,8 +47,11 @@ public class MockServer {
         }
 
         hasStarted = SettableFuture.create();
-        bossGroup = new NioEventLoopGroup();
-        workerGroup = new NioEventLoopGroup();
+        final NettyTransport transport = NettyTransport.transport();
+        bossGroup = transport.acceptorEventLoopGroup();
+        workerGroup = transport.eventLoopGroup(SystemProperties.eventLoopThreadCount());
+        actionHandlerGroup = new DefaultEventExecutorGroup(SystemProperties.actionHandlerThreadCount());
+        streamingExecutor = Executors.newFixedThreadPool(SystemProperties.streamingThreadCount(), new DefaultThreadFactory("mockserver-streaming", true));
 
         Thread mockServerThread = new Thread(new Runnable() {
             @Override
@@ -54,25 +63,21 @@ public class MockServer {
                                     + (securePort != null ? " secureServerPort " + securePort : "")
                     );
                     if (port != null) {
-                        httpChannel = new ServerBootstrap()
-                                .group(bossGroup, workerGroup)
-                                .channel(NioServerSocketChannel.class)
-                                .childHandler(new MockServerInitializer(new MockServerHandler(mockServerMatcher, logFilter, MockServer.this, false)))
-                                .option(ChannelOption.SO_BACKLOG, 1024)
-                                .bind(port)
-                                .sync()
-                                .channel();
+                        httpChannel = transport.bind(
+                                transport.configure(new ServerBootstrap())
+                                        .group(bossGroup, workerGroup)
+                                        .childHandler(new MockServerInitializer(new MockServerHandler(mockServerMatcher, logFilter, MockServer.this, false, actionHandlerGroup, streamingExecutor))),
+                                port
+                        ).channel();
                     }
                     Channel httpsChannel = null;
                     if (securePort != null) {
-                        httpsChannel = new ServerBootstrap()
-                                .group(bossGroup, workerGroup)
-                                .channel(NioServerSocketChannel.class)
-                                .childHandler(new MockServerInitializer(new MockServerHandler(mockServerMatcher, logFilter, MockServer.this, true)))
-                                .option(ChannelOption.SO_BACKLOG, 1024)
-                                .bind(securePort)
-                                .sync()
-                                .channel();
+                        httpsChannel = transport.bind(
+                                transport.configure(new ServerBootstrap())
+                                        .group(bossGroup, workerGroup)
+                                        .childHandler(new MockServerInitializer(new MockServerHandler(mockServerMatcher, logFilter, MockServer.this, true, actionHandlerGroup, streamingExecutor))),
+                                securePort
+                        ).channel();
                     }
 
                     hasStarted.set("STARTED");
@@ -88,6 +93,8 @@ public class MockServer {
                 } finally {
                     bossGroup.shutdownGracefully();
                     workerGroup.shutdownGracefully();
+                    actionHandlerGroup.shutdownGracefully();
+                    streamingExecutor.shutdown();
                 }
             }
         });
@@ -107,6 +114,8 @@ public class MockServer {
         try {
             workerGroup.shutdownGracefully(2, 15, TimeUnit.SECONDS);
             bossGroup.shutdownGracefully(2, 15, TimeUnit.SECONDS);
+            actionHandlerGroup.shutdownGracefully(2, 15, TimeUnit.SECONDS);
+            streamingExecutor.shutdown();
         } catch (Exception ie) {
             logger.trace("Exception while waiting for MockServer to stop", ie);
         }
@@ -3,13 +3,20 @@ package org.mockserver.mockserver;
 import com.google.common.annotations.VisibleForTesting;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.mockserver.client.http.StreamingHttpResponse;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.mappers.MockServerToNettyResponseMapper;
 import org.mockserver.mappers.NettyToMockServerRequestMapper;
 import org.mockserver.mock.Expectation;
@@ -17,6 +24,7 @@ import org.mockserver.mock.MockServerMatcher;
 import org.mockserver.mock.action.HttpForwardActionHandler;
 import org.mockserver.mock.action.HttpResponseActionHandler;
 import org.mockserver.model.Action;
+import org.mockserver.model.Delay;
 import org.mockserver.model.HttpForward;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.NettyHttpRequest;
@@ -26,6 +34,9 @@ import org.mockserver.proxy.filters.LogFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaders.is100ContinueExpected;
@@ -36,6 +47,11 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 @ChannelHandler.Sharable
 public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
 
+    // per channel state for the request currently being received
+    private static final AttributeKey<HttpRequest> REQUEST = AttributeKey.valueOf("MOCK_SERVER_REQUEST");
+    private static final AttributeKey<NettyHttpRequest> MOCK_SERVER_HTTP_REQUEST = AttributeKey.valueOf("MOCK_SERVER_HTTP_REQUEST");
+    private static final AttributeKey<PipelinedResponses> PIPELINED_RESPONSES = AttributeKey.valueOf("MOCK_SERVER_PIPELINED_RESPONSES");
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     // mockserver
     private final MockServer server;
@@ -43,7 +59,11 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
     private final MockServerMatcher mockServerMatcher;
     // netty
     private final boolean secure;
+    // runs actions that block, such as forwarding, so they do not hold up the event loop
+    private final EventExecutorGroup actionHandlerExecutorGroup;
     private HttpForwardActionHandler httpForwardActionHandler;
+    // writes forwarded responses as they are received when "mockserver.streamForwardedResponses" is enabled
+    private StreamingResponseWriter streamingResponseWriter;
     private HttpResponseActionHandler httpResponseActionHandler;
     // mappers
     private NettyToMockServerRequestMapper nettyToMockServerRequestMapper = new NettyToMockServerRequestMapper();
@@ -51,11 +71,21 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
     // serializers
     private ExpectationSerializer expectationSerializer = new ExpectationSerializer();
     private HttpRequestSerializer httpRequestSerializer = new HttpRequestSerializer();
-    // requests
-    private NettyHttpRequest mockServerHttpRequest = null;
-    private HttpRequest request = null;
 
     public MockServerHandler(MockServerMatcher mockServerMatcher, LogFilter logFilter, MockServer server, boolean secure) {
+        this(mockServerMatcher, logFilter, server, secure, null);
+    }
+
+    public MockServerHandler(MockServerMatcher mockServerMatcher, LogFilter logFilter, MockServer server, boolean secure, EventExecutorGroup actionHandlerExecutorGroup) {
+        this(mockServerMatcher, logFilter, server, secure, actionHandlerExecutorGroup, null);
+    }
+
+    /**
+     * @param actionHandlerExecutorGroup the executors to run blocking actions on, or null to run every action on the event loop
+     * @param streamingExecutor the executor the bodies of streamed responses are copied to the client on, or null to never stream responses
+     */
+    public MockServerHandler(MockServerMatcher mockServerMatcher, LogFilter logFilter, MockServer server, boolean secure, EventExecutorGroup actionHandlerExecutorGroup, Executor streamingExecutor) {
+        this.actionHandlerExecutorGroup = actionHandlerExecutorGroup;
         this.mockServerMatcher = mockServerMatcher;
         this.logFilter = logFilter;
         this.server = server;
@@ -65,26 +95,64 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
         filters.withFilter(new org.mockserver.model.HttpRequest(), logFilter);
         httpResponseActionHandler = new HttpResponseActionHandler(filters);
         httpForwardActionHandler = new HttpForwardActionHandler(filters);
+        if (actionHandlerExecutorGroup != null && streamingExecutor != null && SystemProperties.streamForwardedResponses()) {
+            streamingResponseWriter = new StreamingResponseWriter(actionHandlerExecutorGroup, streamingExecutor);
+        }
     }
 
     public boolean isSecure() {
         return secure;
     }
 
+    /**
+     * Responses written while the received requests are being read are only flushed here, so the responses to
+     * pipelined requests that arrive together are written to the socket together
+     */
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         ctx.flush();
     }
 
+    /**
+     * Closes a keep-alive connection that has been idle for longer than "mockserver.keepAliveIdleTimeout", unless it
+     * is still waiting for a delayed or forwarded response
+     */
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            if (!pipelinedResponses(ctx).hasPendingResponses()) {
+                ctx.close();
+            }
+        } else {
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+    private PipelinedResponses pipelinedResponses(ChannelHandlerContext ctx) {
+        Attribute<PipelinedResponses> pipelinedResponsesAttribute = ctx.attr(PIPELINED_RESPONSES);
+        PipelinedResponses pipelinedResponses = pipelinedResponsesAttribute.get();
+        if (pipelinedResponses == null) {
+            pipelinedResponses = new PipelinedResponses();
+            pipelinedResponsesAttribute.set(pipelinedResponses);
+        }
+        return pipelinedResponses;
+    }
+
+    @Override
+    protected void channelRead0(final ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof HttpObject && ((HttpObject) msg).getDecoderResult().isSuccess()) {
+            // this handler is shared by every channel so the request being aggregated is held by the channel
+            Attribute<HttpRequest> requestAttribute = ctx.attr(REQUEST);
+            Attribute<NettyHttpRequest> mockServerHttpRequestAttribute = ctx.attr(MOCK_SERVER_HTTP_REQUEST);
             if (msg instanceof HttpRequest) {
-                request = (HttpRequest) msg;
-                mockServerHttpRequest = new NettyHttpRequest(request.getProtocolVersion(), request.getMethod(), request.getUri(), secure);
+                HttpRequest request = (HttpRequest) msg;
+                NettyHttpRequest mockServerHttpRequest = new NettyHttpRequest(request.getProtocolVersion(), request.getMethod(), request.getUri(), secure);
                 mockServerHttpRequest.headers().add(request.headers());
+                requestAttribute.set(request);
+                mockServerHttpRequestAttribute.set(mockServerHttpRequest);
             }
 
+            NettyHttpRequest mockServerHttpRequest = mockServerHttpRequestAttribute.get();
             if (msg instanceof HttpContent && mockServerHttpRequest != null) {
                 ByteBuf content = ((HttpContent) msg).content();
 
@@ -94,6 +162,10 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
 
                 if (msg instanceof LastHttpContent) {
 
+                    HttpRequest request = requestAttribute.getAndSet(null);
+                    long sequence = pipelinedResponses(ctx).nextRequest();
+                    mockServerHttpRequestAttribute.set(null);
+
                     LastHttpContent trailer = (LastHttpContent) msg;
                     if (!trailer.trailingHeaders().isEmpty()) {
                         mockServerHttpRequest.headers().entries().addAll(trailer.trailingHeaders().entries());
@@ -101,24 +173,121 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
 
                     if (mockServerHttpRequest.matches(HttpMethod.PUT, "/stop")) {
 
-                        writeResponse(ctx, new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED), isKeepAlive(request), is100ContinueExpected(request));
-                        ctx.close();
+                        // the connection is closed once the response has been written, after the responses to any earlier requests
+                        writeResponse(ctx, sequence, new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED), false, is100ContinueExpected(request), true, true);
                         server.stop();
 
                     } else {
 
-                        writeResponse(ctx, mockResponse(mockServerHttpRequest), isKeepAlive(request), is100ContinueExpected(request));
+                        respond(ctx, sequence, mockServerHttpRequest, isKeepAlive(request), is100ContinueExpected(request));
 
                     }
                 }
 
             }
         } else {
-            ctx.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST));
+            writeInOrder(ctx, pipelinedResponses(ctx).nextRequest(), new Runnable() {
+                @Override
+                public void run() {
+                    ctx.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST));
+                }
+            }, false);
+        }
+    }
+
+    private void respond(final ChannelHandlerContext ctx, final long sequence, NettyHttpRequest nettyHttpRequest, final boolean isKeepAlive, final boolean is100ContinueExpected) {
+        FullHttpResponse response = controlResponse(nettyHttpRequest);
+        Delay delay = null;
+        if (response == null) {
+            final org.mockserver.model.HttpRequest httpRequest = nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(nettyHttpRequest);
+            final Action action = mockServerMatcher.handle(httpRequest);
+            if (action != null && action.getType() == Action.Type.FORWARD && streamingResponseWriter != null) {
+                streamingResponseWriter.write(ctx, pipelinedResponses(ctx), sequence, new Callable<StreamingHttpResponse>() {
+                    @Override
+                    public StreamingHttpResponse call() {
+                        return httpForwardActionHandler.handleStreaming((HttpForward) action, httpRequest);
+                    }
+                }, isKeepAlive, is100ContinueExpected);
+                return;
+            }
+            if (action != null && action.getType() == Action.Type.FORWARD && actionHandlerExecutorGroup != null) {
+                actionHandlerExecutorGroup.next().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            final FullHttpResponse response = actionResponse(action, httpRequest);
+                            // the response is written from the event loop which holds the order of the responses
+                            ctx.executor().execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    writeResponse(ctx, sequence, response, isKeepAlive, is100ContinueExpected, true, false);
+                                }
+                            });
+                        } catch (Throwable throwable) {
+                            ctx.fireExceptionCaught(throwable);
+                        }
+                    }
+                });
+                return;
+            }
+            if (action instanceof HttpResponse) {
+                HttpResponse httpResponse = httpResponseActionHandler.handle((HttpResponse) action, httpRequest);
+                delay = ((HttpResponse) action).getDelay();
+                if (delay == null && writeCompiledResponse(ctx, sequence, mockServerToNettyResponseMapper.compiledResponse(httpResponse, isKeepAlive), is100ContinueExpected)) {
+                    return;
+                }
+                response = mapResponse(httpResponse);
+            } else {
+                response = actionResponse(action, httpRequest);
+            }
         }
+        writeResponse(ctx, sequence, response, isKeepAlive, is100ContinueExpected, delay);
     }
 
-    private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response, boolean isKeepAlive, boolean is100ContinueExpected) {
+    /**
+     * Writes a response that was encoded when its expectation was added, the bytes are written from the context of
+     * the http codec so they are not passed to the encoder again
+     *
+     * @return false if the response was not written because it has not been compiled or there is no http codec
+     */
+    private boolean writeCompiledResponse(final ChannelHandlerContext ctx, long sequence, final ByteBuf compiledResponse, final boolean is100ContinueExpected) {
+        if (compiledResponse != null) {
+            final ChannelHandlerContext codecContext = ctx.pipeline().context(HttpServerCodec.class);
+            if (codecContext != null) {
+                writeInOrder(ctx, sequence, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (is100ContinueExpected) {
+                            ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+                        }
+                        codecContext.write(compiledResponse);
+                    }
+                }, false);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeResponse(final ChannelHandlerContext ctx, final long sequence, final FullHttpResponse response, final boolean isKeepAlive, final boolean is100ContinueExpected, Delay delay) {
+        if (delay != null && delay.getTimeUnit() != null && delay.getValue() > 0) {
+            // scheduled on the channel's event loop rather than sleeping so a delayed response does not hold up any other connection
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    writeResponse(ctx, sequence, response, isKeepAlive, is100ContinueExpected, true, false);
+                }
+            }, delay.getValue(), delay.getTimeUnit());
+        } else {
+            writeResponse(ctx, sequence, response, isKeepAlive, is100ContinueExpected, false, false);
+        }
+    }
+
+    /**
+     * @param flush true if the response is written after the request has been read, so it would not otherwise be flushed
+     * @param close true if the connection is closed once the response has been written
+     */
+    private void writeResponse(final ChannelHandlerContext ctx, long sequence, final FullHttpResponse response, boolean isKeepAlive, final boolean is100ContinueExpected, boolean flush, final boolean close) {
         // Add 'Content-Length' header only for a keep-alive connection.
         response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
         if (isKeepAlive) {
@@ -128,21 +297,46 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
         } else {
             response.headers().set(CONNECTION, HttpHeaders.Values.CLOSE);
         }
-        if (is100ContinueExpected) {
-            ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        writeInOrder(ctx, sequence, new Runnable() {
+            @Override
+            public void run() {
+                if (is100ContinueExpected) {
+                    ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+                }
+                if (close) {
+                    ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+                } else {
+                    ctx.write(response);
+                }
+            }
+        }, flush);
+    }
+
+    private void writeInOrder(ChannelHandlerContext ctx, long sequence, Runnable write, boolean flush) {
+        if (pipelinedResponses(ctx).write(sequence, write) && flush) {
+            ctx.flush();
         }
-        ctx.write(response);
-        ctx.flush();
     }
 
     @VisibleForTesting
     FullHttpResponse mockResponse(NettyHttpRequest nettyHttpRequest) {
+        FullHttpResponse response = controlResponse(nettyHttpRequest);
+        if (response == null) {
+            org.mockserver.model.HttpRequest httpRequest = nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(nettyHttpRequest);
+            response = actionResponse(mockServerMatcher.handle(httpRequest), httpRequest);
+        }
+        return response;
+    }
 
-        String content = (nettyHttpRequest.content() != null ? nettyHttpRequest.content().toString(CharsetUtil.UTF_8) : "");
-
+    /**
+     * Handles requests that control MockServer, such as adding expectations
+     *
+     * @return the response or null if the request is not a control request and should be matched against the expectations
+     */
+    private FullHttpResponse controlResponse(NettyHttpRequest nettyHttpRequest) {
         if (nettyHttpRequest.matches(HttpMethod.PUT, "/dumpToLog")) {
 
-            mockServerMatcher.dumpToLog(httpRequestSerializer.deserialize(content));
+            mockServerMatcher.dumpToLog(httpRequestSerializer.deserialize(content(nettyHttpRequest)));
             return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/reset")) {
@@ -153,41 +347,51 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/clear")) {
 
-            org.mockserver.model.HttpRequest httpRequest = httpRequestSerializer.deserialize(content);
+            org.mockserver.model.HttpRequest httpRequest = httpRequestSerializer.deserialize(content(nettyHttpRequest));
             logFilter.clear(httpRequest);
             mockServerMatcher.clear(httpRequest);
             return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/expectation")) {
 
-            Expectation expectation = expectationSerializer.deserialize(content);
+            Expectation expectation = expectationSerializer.deserialize(content(nettyHttpRequest));
+            mockServerToNettyResponseMapper.compileResponse(expectation.getHttpResponse(false));
             mockServerMatcher.when(expectation.getHttpRequest(), expectation.getTimes()).thenRespond(expectation.getHttpResponse(false)).thenForward(expectation.getHttpForward());
             return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CREATED);
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/retrieve")) {
 
-            Expectation[] expectations = logFilter.retrieve(httpRequestSerializer.deserialize(content));
+            Expectation[] expectations = logFilter.retrieve(httpRequestSerializer.deserialize(content(nettyHttpRequest)));
             return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(expectationSerializer.serialize(expectations).getBytes()));
 
         } else {
 
-            org.mockserver.model.HttpRequest httpRequest = nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(nettyHttpRequest);
-            Action action = mockServerMatcher.handle(httpRequest);
+            return null;
 
-            if (action != null) {
-                switch (action.getType()) {
-                    case FORWARD: {
-                        return mapResponse(httpForwardActionHandler.handle((HttpForward) action, httpRequest));
-                    }
-                    case CALLBACK:
-                        // todo implement callback logic in here
-                    case RESPONSE:
-                    default:
-                        return mapResponse(httpResponseActionHandler.handle((HttpResponse) action, httpRequest));
+        }
+    }
+
+    /**
+     * @return the body of a control request, which is only decoded once the request is known to be a control request
+     */
+    private String content(NettyHttpRequest nettyHttpRequest) {
+        return (nettyHttpRequest.content() != null ? nettyHttpRequest.content().toString(CharsetUtil.UTF_8) : "");
+    }
+
+    private FullHttpResponse actionResponse(Action action, org.mockserver.model.HttpRequest httpRequest) {
+        if (action != null) {
+            switch (action.getType()) {
+                case FORWARD: {
+                    return mapResponse(httpForwardActionHandler.handle((HttpForward) action, httpRequest));
                 }
-            } else {
-                return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND);
+                case CALLBACK:
+                    // todo implement callback logic in here
+                case RESPONSE:
+                default:
+                    return mapResponse(httpResponseActionHandler.handle((HttpResponse) action, httpRequest));
             }
+        } else {
+            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND);
         }
     }
 
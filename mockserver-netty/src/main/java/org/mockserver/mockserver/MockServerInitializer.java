@@ -5,12 +5,15 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.logging.LoggingHandler;
 import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLEngine;
+import java.util.concurrent.TimeUnit;
 
 public class MockServerInitializer extends ChannelInitializer<SocketChannel> {
 
@@ -38,6 +41,12 @@ public class MockServerInitializer extends ChannelInitializer<SocketChannel> {
             pipeline.addLast("logger", new LoggingHandler());
         }
 
+        // close idle keep-alive connections
+        long keepAliveIdleTimeout = SystemProperties.keepAliveIdleTimeout();
+        if (keepAliveIdleTimeout > 0) {
+            pipeline.addLast("idle", new IdleStateHandler(0, 0, keepAliveIdleTimeout, TimeUnit.MILLISECONDS));
+        }
+
         // add msg <-> HTTP
         pipeline.addLast("decoder-encoder", new HttpServerCodec());
 
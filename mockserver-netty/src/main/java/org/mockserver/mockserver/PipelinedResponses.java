@@ -0,0 +1,85 @@
+package org.mockserver.mockserver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the responses written to a connection in the same order as the requests were received, as http pipelining
+ * requires, a response that is ready before the responses to earlier requests, such as when an earlier response is
+ * delayed or forwarded, is held until they have been written
+ *
+ * A response whose body is streamed holds the responses to every later request until its stream is complete
+ *
+ * Every method must be called on the channel's event loop
+ *
+ * @author jamesdbloom
+ */
+public class PipelinedResponses {
+
+    private final Map<Long, Runnable> heldResponses = new HashMap<Long, Runnable>();
+    private long nextRequest;
+    private long nextResponse;
+    private boolean streaming;
+
+    /**
+     * @return the sequence number of the next request received on the connection
+     */
+    public long nextRequest() {
+        return nextRequest++;
+    }
+
+    /**
+     * Runs the write of the response to a request if the responses to every earlier request have been written,
+     * followed by any held responses to later requests that are then next, otherwise holds it until they have
+     *
+     * @return true if any response was written
+     */
+    public boolean write(long request, Runnable write) {
+        heldResponses.put(request, write);
+        return writeHeldResponses();
+    }
+
+    /**
+     * Runs the write of the start of a response whose body is then streamed in the same way as write, the responses
+     * to later requests are held until streamComplete is called
+     *
+     * @return true if any response was written
+     */
+    public boolean writeStreamed(long request, final Runnable write) {
+        return write(request, new Runnable() {
+            @Override
+            public void run() {
+                streaming = true;
+                write.run();
+            }
+        });
+    }
+
+    /**
+     * Writes any held responses that were waiting for the streamed response to complete
+     *
+     * @return true if any response was written
+     */
+    public boolean streamComplete() {
+        streaming = false;
+        return writeHeldResponses();
+    }
+
+    private boolean writeHeldResponses() {
+        boolean written = false;
+        while (!streaming && heldResponses.containsKey(nextResponse)) {
+            Runnable next = heldResponses.remove(nextResponse);
+            nextResponse++;
+            next.run();
+            written = true;
+        }
+        return written;
+    }
+
+    /**
+     * @return true if a request has been received that has not had its response written
+     */
+    public boolean hasPendingResponses() {
+        return nextResponse < nextRequest || streaming;
+    }
+}
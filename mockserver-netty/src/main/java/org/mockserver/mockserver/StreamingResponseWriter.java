@@ -0,0 +1,210 @@
+package org.mockserver.mockserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.*;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.mockserver.client.http.StreamingHttpResponse;
+import org.mockserver.mappers.MockServerToNettyResponseMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Writes a forwarded response to the client as its body is received from the upstream server, each chunk of the
+ * body is passed on as HttpContent and the next chunk is only read from the upstream server once the client has
+ * room for it, so a large download is never held in memory and a slow client slows down the upstream server
+ *
+ * The request is forwarded on the executor group and the body is copied on the separate streaming executor, so the
+ * event loop is never blocked, a copy never waits for a slow client, it stops when the client has no room and is
+ * resumed once the client has read what has been written, so a few slow clients can not hold up every forward
+ *
+ * @author jamesdbloom
+ */
+public class StreamingResponseWriter {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+    private static final Logger logger = LoggerFactory.getLogger(StreamingResponseWriter.class);
+    private final EventExecutorGroup executorGroup;
+    private final Executor streamingExecutor;
+    private final MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
+
+    /**
+     * @param executorGroup the executors requests are forwarded on
+     * @param streamingExecutor the bounded executor the bodies of responses are copied to the client on
+     */
+    public StreamingResponseWriter(EventExecutorGroup executorGroup, Executor streamingExecutor) {
+        this.executorGroup = executorGroup;
+        this.streamingExecutor = streamingExecutor;
+    }
+
+    /**
+     * Forwards a request and writes its response, in order with the responses to the other requests on the connection,
+     * if the response can not be written the connection is closed as no later response could be written either
+     *
+     * @param forward sends the request upstream returning the response or null if the request is not sent
+     */
+    public void write(final ChannelHandlerContext ctx, final PipelinedResponses pipelinedResponses, final long sequence, final Callable<StreamingHttpResponse> forward, final boolean isKeepAlive, final boolean is100ContinueExpected) {
+        executorGroup.next().execute(new Runnable() {
+            @Override
+            public void run() {
+                StreamingHttpResponse streamingHttpResponse = null;
+                try {
+                    streamingHttpResponse = forward.call();
+                    if (streamingHttpResponse != null && streamingHttpResponse.hasBody()) {
+                        writeStreamed(ctx, pipelinedResponses, sequence, streamingHttpResponse, isKeepAlive, is100ContinueExpected);
+                    } else {
+                        writeWhole(ctx, pipelinedResponses, sequence, streamingHttpResponse, isKeepAlive, is100ContinueExpected);
+                    }
+                } catch (Throwable throwable) {
+                    logger.warn("Exception while forwarding request closing connection", throwable);
+                    if (streamingHttpResponse != null) {
+                        streamingHttpResponse.close();
+                    }
+                    ctx.close();
+                }
+            }
+        });
+    }
+
+    private void writeWhole(final ChannelHandlerContext ctx, final PipelinedResponses pipelinedResponses, final long sequence, StreamingHttpResponse streamingHttpResponse, boolean isKeepAlive, final boolean is100ContinueExpected) {
+        final FullHttpResponse response;
+        if (streamingHttpResponse != null) {
+            response = mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(streamingHttpResponse.getHttpResponse());
+            streamingHttpResponse.close();
+        } else {
+            response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        }
+        response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
+        response.headers().set(CONNECTION, isKeepAlive ? HttpHeaders.Values.KEEP_ALIVE : HttpHeaders.Values.CLOSE);
+        ctx.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (pipelinedResponses.write(sequence, writeHead(ctx, response, is100ContinueExpected))) {
+                    ctx.flush();
+                }
+            }
+        });
+    }
+
+    private void writeStreamed(final ChannelHandlerContext ctx, final PipelinedResponses pipelinedResponses, final long sequence, final StreamingHttpResponse streamingHttpResponse, boolean isKeepAlive, final boolean is100ContinueExpected) {
+        final HttpResponse head = mockServerToNettyResponseMapper.mapMockServerResponseHeadToNettyResponse(streamingHttpResponse.getHttpResponse());
+        head.headers().set(CONNECTION, isKeepAlive ? HttpHeaders.Values.KEEP_ALIVE : HttpHeaders.Values.CLOSE);
+        ctx.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                // the body is only read from the upstream server once the responses to earlier requests are written
+                pipelinedResponses.writeStreamed(sequence, new Runnable() {
+                    @Override
+                    public void run() {
+                        writeHead(ctx, head, is100ContinueExpected).run();
+                        ctx.flush();
+                        writeBody(ctx, pipelinedResponses, streamingHttpResponse);
+                    }
+                });
+            }
+        });
+    }
+
+    private Runnable writeHead(final ChannelHandlerContext ctx, final HttpResponse response, final boolean is100ContinueExpected) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (is100ContinueExpected) {
+                    ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+                }
+                ctx.write(response);
+            }
+        };
+    }
+
+    /**
+     * Copies the body to the client on the streaming executor then writes any responses held until it was complete
+     */
+    void writeBody(ChannelHandlerContext ctx, PipelinedResponses pipelinedResponses, StreamingHttpResponse streamingHttpResponse) {
+        streamingExecutor.execute(new BodyCopy(ctx, pipelinedResponses, streamingHttpResponse));
+    }
+
+    /**
+     * Copies the body to the client a chunk at a time until the client has no room for more, the copy is then
+     * resubmitted to the streaming executor once the last chunk written has been sent, rather than waiting for it
+     */
+    private class BodyCopy implements Runnable {
+        private final ChannelHandlerContext ctx;
+        private final PipelinedResponses pipelinedResponses;
+        private final StreamingHttpResponse streamingHttpResponse;
+
+        private BodyCopy(ChannelHandlerContext ctx, PipelinedResponses pipelinedResponses, StreamingHttpResponse streamingHttpResponse) {
+            this.ctx = ctx;
+            this.pipelinedResponses = pipelinedResponses;
+            this.streamingHttpResponse = streamingHttpResponse;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (ctx.channel().isActive()) {
+                    ByteBuf chunk = ctx.alloc().buffer(CHUNK_SIZE);
+                    int read;
+                    try {
+                        read = chunk.writeBytes(streamingHttpResponse.getBody(), CHUNK_SIZE);
+                    } catch (IOException ioe) {
+                        chunk.release();
+                        throw ioe;
+                    }
+                    if (read == -1) {
+                        chunk.release();
+                        ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+                        complete(true);
+                        return;
+                    }
+                    ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(chunk));
+                    if (!ctx.channel().isWritable()) {
+                        future.addListener(new ChannelFutureListener() {
+                            @Override
+                            public void operationComplete(ChannelFuture future) {
+                                if (future.isSuccess()) {
+                                    streamingExecutor.execute(BodyCopy.this);
+                                } else {
+                                    logger.debug("Failed to write streamed response", future.cause());
+                                    complete(false);
+                                }
+                            }
+                        });
+                        return;
+                    }
+                }
+                complete(false);
+            } catch (Throwable throwable) {
+                logger.warn("Exception while streaming response from upstream server", throwable);
+                complete(false);
+            }
+        }
+
+        private void complete(final boolean bodyWritten) {
+            streamingHttpResponse.close();
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!bodyWritten) {
+                        // the client can only tell the response was cut short if the connection is closed
+                        ctx.close();
+                    }
+                    if (pipelinedResponses.streamComplete()) {
+                        ctx.flush();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.mockserver.model;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
@@ -28,11 +30,26 @@ public class NettyHttpRequest extends DefaultHttpRequest {
         this.secure = secure;
     }
 
-    public void content(ByteBuf content) {
-        if (this.content == null) {
-            this.content = Unpooled.copiedBuffer(content);
+    /**
+     * Adds a chunk of the body, the headers must be added first, if the Content-Length header is set the body is
+     * copied into a single buffer of that size, otherwise each chunk is copied once into its own buffer so a large body
+     * is not copied again each time the buffer holding it would otherwise need to grow
+     */
+    public void content(ByteBuf chunk) {
+        int length = chunk.readableBytes();
+        if (content == null) {
+            long expectedLength = HttpHeaders.getContentLength(this, -1);
+            if (expectedLength >= length && expectedLength <= Integer.MAX_VALUE) {
+                content = Unpooled.buffer((int) expectedLength);
+            } else {
+                content = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+            }
+        }
+        if (content instanceof CompositeByteBuf) {
+            ((CompositeByteBuf) content).addComponent(Unpooled.copiedBuffer(chunk));
+            content.writerIndex(content.writerIndex() + length);
         } else {
-            this.content.writeBytes(content);
+            content.writeBytes(chunk, chunk.readerIndex(), length);
         }
     }
 
@@ -40,6 +57,22 @@ public class NettyHttpRequest extends DefaultHttpRequest {
         return content;
     }
 
+    /**
+     * @return the body as bytes, which are not copied if the body was received into a buffer sized from its
+     * Content-Length header, or null if there is no body
+     */
+    public byte[] contentBytes() {
+        if (content == null) {
+            return null;
+        }
+        if (content.hasArray() && content.arrayOffset() == 0 && content.readerIndex() == 0 && content.array().length == content.readableBytes()) {
+            return content.array();
+        }
+        byte[] bytes = new byte[content.readableBytes()];
+        content.getBytes(content.readerIndex(), bytes);
+        return bytes;
+    }
+
     public String path() {
         return path;
     }
@@ -4,16 +4,21 @@ import ch.qos.logback.classic.Level;
 import com.google.common.util.concurrent.SettableFuture;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.socks.SocksInitRequestDecoder;
 import io.netty.handler.codec.socks.SocksMessageEncoder;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.mockserver.client.http.ApacheHttpClient;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.proxy.filters.LogFilter;
 import org.mockserver.proxy.http.direct.DirectProxyUpstreamHandler;
+import org.mockserver.proxy.http.relay.UpstreamChannelPool;
 import org.mockserver.proxy.interceptor.RequestInterceptor;
+import org.mockserver.socket.NettyTransport;
 import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,7 +28,8 @@ import java.io.IOException;
 import java.net.*;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,8 +48,15 @@ public class HttpProxy {
     // jvm
     private ProxySelector previousProxySelector;
     // netty
-    private EventLoopGroup bossGroup = new NioEventLoopGroup();
-    private EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private final NettyTransport transport = NettyTransport.transport();
+    private EventLoopGroup bossGroup = transport.acceptorEventLoopGroup();
+    private EventLoopGroup workerGroup = transport.eventLoopGroup(SystemProperties.eventLoopThreadCount());
+    private EventExecutorGroup streamingGroup = new DefaultEventExecutorGroup(SystemProperties.actionHandlerThreadCount());
+    private ExecutorService streamingExecutor = Executors.newFixedThreadPool(SystemProperties.streamingThreadCount(), new DefaultThreadFactory("proxy-streaming", true));
+    // shared by every connection so upstream connections are pooled across them
+    private final ApacheHttpClient apacheHttpClient = new ApacheHttpClient(true);
+    // upstream connections are closed when the worker group shuts down
+    private final UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(SystemProperties.maxIdleUpstreamConnectionsPerHost(), SystemProperties.upstreamConnectionIdleTimeout(), (int) Math.min(Integer.MAX_VALUE, SystemProperties.maxTimeout()));
 
     public static ProxySelector proxySelector() {
         if (Boolean.parseBoolean(System.getProperty("defaultProxySet"))) {
@@ -123,6 +136,9 @@ public class HttpProxy {
                 } finally {
                     bossGroup.shutdownGracefully();
                     workerGroup.shutdownGracefully();
+                    streamingGroup.shutdownGracefully();
+                    streamingExecutor.shutdown();
+                    apacheHttpClient.close();
                 }
             }
         });
@@ -156,7 +172,7 @@ public class HttpProxy {
         }
     }
 
-    private ChannelFuture createHTTPChannel(final Integer port, final Integer securePort) throws ExecutionException, InterruptedException {
+    private ChannelFuture createHTTPChannel(final Integer port, final Integer securePort) throws InterruptedException {
         boolean condition = port != null;
         if (condition) {
             logger.info("Starting HTTP proxy & HTTPS CONNECT port [" + port + "]");
@@ -171,12 +187,12 @@ public class HttpProxy {
                 pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
 
                 // add handler
-                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, securePort != null ? new InetSocketAddress(securePort) : null, false));
+                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, securePort != null ? new InetSocketAddress(securePort) : null, false, apacheHttpClient, streamingGroup, streamingExecutor));
             }
         }, port, true);
     }
 
-    private ChannelFuture createHTTPSChannel(final Integer securePort) throws ExecutionException, InterruptedException {
+    private ChannelFuture createHTTPSChannel(final Integer securePort) throws InterruptedException {
         boolean condition = securePort != null;
         if (condition) {
             logger.info("Starting HTTPS proxy port [" + securePort + "]");
@@ -196,12 +212,12 @@ public class HttpProxy {
                 pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
 
                 // add handler
-                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, securePort != null ? new InetSocketAddress(securePort) : null, true));
+                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, securePort != null ? new InetSocketAddress(securePort) : null, true, apacheHttpClient, streamingGroup, streamingExecutor));
             }
         }, securePort, true);
     }
 
-    private ChannelFuture createSOCKSChannel(final Integer socksPort, final Integer port) throws ExecutionException, InterruptedException {
+    private ChannelFuture createSOCKSChannel(final Integer socksPort, final Integer port) throws InterruptedException {
         boolean condition = socksPort != null && port != null;
         if (condition) {
             logger.info("Starting SOCKS proxy port [" + socksPort + "]");
@@ -217,12 +233,12 @@ public class HttpProxy {
                 pipeline.addLast(SocksMessageEncoder.class.getSimpleName(), new SocksMessageEncoder());
 
                 // add handler
-                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, new InetSocketAddress(port), false));
+                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, new InetSocketAddress(port), false, apacheHttpClient, streamingGroup, streamingExecutor));
             }
         }, socksPort, true);
     }
 
-    private ChannelFuture createDirectChannel(final Integer directLocalPort, final String directRemoteHost, final Integer directRemotePort) throws ExecutionException, InterruptedException {
+    private ChannelFuture createDirectChannel(final Integer directLocalPort, final String directRemoteHost, final Integer directRemotePort) throws InterruptedException {
         boolean condition = directLocalPort != null && directRemoteHost != null && directRemotePort != null;
         if (condition) {
             logger.info("Starting Direct proxy from port [" + directLocalPort + "] to host [" + directRemoteHost + ":" + directRemotePort + "]");
@@ -233,14 +249,15 @@ public class HttpProxy {
                 // Create a default pipeline implementation.
                 ChannelPipeline pipeline = ch.pipeline();
 
-                // add handler
+                // add request interceptor and handler
                 InetSocketAddress remoteSocketAddress = new InetSocketAddress(directRemoteHost, directRemotePort);
-                pipeline.addLast(new DirectProxyUpstreamHandler(remoteSocketAddress, false, 1048576, new RequestInterceptor(remoteSocketAddress), "                -->"));
+                pipeline.addLast(RequestInterceptor.class.getSimpleName(), new RequestInterceptor(remoteSocketAddress, true));
+                pipeline.addLast(new DirectProxyUpstreamHandler(remoteSocketAddress, false, upstreamChannelPool, "                -->"));
             }
         }, directLocalPort, false);
     }
 
-    private ChannelFuture createDirectSecureChannel(final Integer directLocalSecurePort, final String directRemoteHost, final Integer directRemotePort) throws ExecutionException, InterruptedException {
+    private ChannelFuture createDirectSecureChannel(final Integer directLocalSecurePort, final String directRemoteHost, final Integer directRemotePort) throws InterruptedException {
         boolean condition = directLocalSecurePort != null && directRemoteHost != null && directRemotePort != null;
         if (condition) {
             logger.info("Starting Direct SSL proxy from port [" + directLocalSecurePort + "] to host [" + directRemoteHost + ":" + directRemotePort + "]");
@@ -256,37 +273,27 @@ public class HttpProxy {
                 engine.setUseClientMode(false);
                 pipeline.addLast("ssl inbound", new SslHandler(engine));
 
-                // add handler
+                // add request interceptor and handler
                 InetSocketAddress remoteSocketAddress = new InetSocketAddress(directRemoteHost, directRemotePort);
-                pipeline.addLast(new DirectProxyUpstreamHandler(remoteSocketAddress, true, 1048576, new RequestInterceptor(remoteSocketAddress), "                -->"));
+                pipeline.addLast(RequestInterceptor.class.getSimpleName(), new RequestInterceptor(remoteSocketAddress, true));
+                pipeline.addLast(new DirectProxyUpstreamHandler(remoteSocketAddress, true, upstreamChannelPool, "                -->"));
 
             }
         }, directLocalSecurePort, false);
     }
 
-    private ChannelFuture createBootstrap(boolean condition, final ChannelInitializer<SocketChannel> childHandler, final Integer port, boolean autoRead) throws ExecutionException, InterruptedException {
-        final SettableFuture<ChannelFuture> hasConnected = SettableFuture.create();
+    private ChannelFuture createBootstrap(boolean condition, final ChannelInitializer<SocketChannel> childHandler, final Integer port, boolean autoRead) throws InterruptedException {
         if (condition) {
-            new ServerBootstrap()
-                    .group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .childHandler(childHandler)
-                    .option(ChannelOption.SO_BACKLOG, 1024)
-                    .childOption(ChannelOption.AUTO_READ, autoRead)
-                    .bind(port).addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (future.isSuccess()) {
-                        hasConnected.set(future);
-                    } else {
-                        hasConnected.setException(future.cause());
-                    }
-                }
-            });
+            return transport.bind(
+                    transport.configure(new ServerBootstrap())
+                            .group(bossGroup, workerGroup)
+                            .childHandler(childHandler)
+                            .childOption(ChannelOption.AUTO_READ, autoRead),
+                    port
+            );
         } else {
-            hasConnected.set(null);
+            return null;
         }
-        return hasConnected.get();
     }
 
     protected void proxyStarted(final Integer port, boolean socksProxy) {
@@ -317,6 +324,8 @@ public class HttpProxy {
             proxyStopping();
             workerGroup.shutdownGracefully(2, 15, TimeUnit.SECONDS);
             bossGroup.shutdownGracefully(2, 15, TimeUnit.SECONDS);
+            streamingGroup.shutdownGracefully(2, 15, TimeUnit.SECONDS);
+            streamingExecutor.shutdown();
             // wait for shutdown
             TimeUnit.SECONDS.sleep(3);
         } catch (Exception ie) {
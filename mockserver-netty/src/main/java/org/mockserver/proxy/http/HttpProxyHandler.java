@@ -2,20 +2,26 @@ package org.mockserver.proxy.http;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.socks.*;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.apache.commons.lang3.StringUtils;
 import org.mockserver.client.http.ApacheHttpClient;
+import org.mockserver.client.http.StreamingHttpResponse;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.mappers.MockServerToNettyResponseMapper;
 import org.mockserver.mappers.NettyToMockServerRequestMapper;
 import org.mockserver.mock.Expectation;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.NettyHttpRequest;
+import org.mockserver.mockserver.PipelinedResponses;
+import org.mockserver.mockserver.StreamingResponseWriter;
 import org.mockserver.proxy.filters.*;
 import org.mockserver.proxy.http.connect.HttpConnectHandler;
 import org.mockserver.proxy.http.socks.SocksConnectHandler;
@@ -24,6 +30,8 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
@@ -41,7 +49,9 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
     private final HttpProxy server;
     private final LogFilter logFilter;
     private final Filters filters = new Filters();
-    private final ApacheHttpClient apacheHttpClient = new ApacheHttpClient(true);
+    private final ApacheHttpClient apacheHttpClient;
+    private final StreamingResponseWriter streamingResponseWriter;
+    private final PipelinedResponses pipelinedResponses = new PipelinedResponses();
     // mappers
     private NettyToMockServerRequestMapper nettyToMockServerRequestMapper = new NettyToMockServerRequestMapper();
     private MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
@@ -53,11 +63,22 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
     private HttpRequest request = null;
 
 
-    public HttpProxyHandler(LogFilter logFilter, HttpProxy server, InetSocketAddress connectSocket, boolean secure) {
+    /**
+     * @param apacheHttpClient the client requests are forwarded with, shared by every connection so upstream connections are pooled across them
+     * @param streamingExecutorGroup the executors requests whose responses are streamed are forwarded on, or null to read every response completely before it is returned
+     * @param streamingExecutor the executor the bodies of streamed responses are copied to the client on
+     */
+    public HttpProxyHandler(LogFilter logFilter, HttpProxy server, InetSocketAddress connectSocket, boolean secure, ApacheHttpClient apacheHttpClient, EventExecutorGroup streamingExecutorGroup, Executor streamingExecutor) {
         this.logFilter = logFilter;
         this.server = server;
         this.connectSocket = connectSocket;
         this.secure = secure;
+        this.apacheHttpClient = apacheHttpClient;
+        if (streamingExecutorGroup != null && streamingExecutor != null && SystemProperties.streamForwardedResponses()) {
+            streamingResponseWriter = new StreamingResponseWriter(streamingExecutorGroup, streamingExecutor);
+        } else {
+            streamingResponseWriter = null;
+        }
         filters.withFilter(new org.mockserver.model.HttpRequest(), new HopByHopHeaderFilter());
         filters.withFilter(new org.mockserver.model.HttpRequest(), logFilter);
     }
@@ -124,8 +145,8 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
 
                     } else if (mockServerHttpRequest.matches(HttpMethod.PUT, "/stop")) {
 
-                        writeResponse(ctx, new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED), isKeepAlive(request), is100ContinueExpected(request));
-                        ctx.close();
+                        // the connection is closed once the response has been written, after the responses to any earlier requests
+                        writeResponse(ctx, pipelinedResponses.nextRequest(), new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED), false, is100ContinueExpected(request), true);
                         if (server != null) {
                             server.stop();
                         } else {
@@ -134,7 +155,19 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
 
                     } else {
 
-                        writeResponse(ctx, mockResponse(mockServerHttpRequest), isKeepAlive(request), is100ContinueExpected(request));
+                        long sequence = pipelinedResponses.nextRequest();
+                        FullHttpResponse response = controlResponse(mockServerHttpRequest);
+                        if (response == null && streamingResponseWriter != null) {
+                            final org.mockserver.model.HttpRequest httpRequest = nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(mockServerHttpRequest);
+                            streamingResponseWriter.write(ctx, pipelinedResponses, sequence, new Callable<StreamingHttpResponse>() {
+                                @Override
+                                public StreamingHttpResponse call() {
+                                    return streamRequest(filters.applyFilters(httpRequest));
+                                }
+                            }, isKeepAlive(request), is100ContinueExpected(request));
+                        } else {
+                            writeResponse(ctx, sequence, (response != null ? response : forwardRequest(mockServerHttpRequest)), isKeepAlive(request), is100ContinueExpected(request), false);
+                        }
 
                     }
                 }
@@ -183,7 +216,10 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
         }
     }
 
-    private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response, boolean isKeepAlive, boolean is100ContinueExpected) {
+    /**
+     * @param close true if the connection is closed once the response has been written
+     */
+    private void writeResponse(final ChannelHandlerContext ctx, long sequence, final FullHttpResponse response, boolean isKeepAlive, final boolean is100ContinueExpected, final boolean close) {
         // Add 'Content-Length' header only for a keep-alive connection.
         response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
         if (isKeepAlive) {
@@ -193,14 +229,28 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
         } else {
             response.headers().set(CONNECTION, HttpHeaders.Values.CLOSE);
         }
-        if (is100ContinueExpected) {
-            ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        // held until any streamed response to an earlier request is complete
+        if (pipelinedResponses.write(sequence, new Runnable() {
+            @Override
+            public void run() {
+                if (is100ContinueExpected) {
+                    ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+                }
+                if (close) {
+                    ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+                } else {
+                    ctx.write(response);
+                }
+            }
+        })) {
+            ctx.flush();
         }
-        ctx.write(response);
-        ctx.flush();
     }
 
-    private FullHttpResponse mockResponse(NettyHttpRequest nettyHttpRequest) {
+    /**
+     * @return the response or null if the request is not a control request and should be forwarded
+     */
+    private FullHttpResponse controlResponse(NettyHttpRequest nettyHttpRequest) {
 
         if (nettyHttpRequest.matches(HttpMethod.PUT, "/dumpToLog")) {
 
@@ -228,7 +278,7 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
 
         } else {
 
-            return forwardRequest(nettyHttpRequest);
+            return null;
 
         }
     }
@@ -237,6 +287,23 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
         return sendRequest(filters.applyFilters(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(request)));
     }
 
+    /**
+     * @return the response, whose body is read as it is streamed, or null if HttpRequest was set to null by a filter
+     */
+    private StreamingHttpResponse streamRequest(final org.mockserver.model.HttpRequest httpRequest) {
+        if (httpRequest != null) {
+            final StreamingHttpResponse streamingHttpResponse = apacheHttpClient.sendStreamingRequest(httpRequest, SystemProperties.streamedResponseCaptureSize());
+            return streamingHttpResponse.whenClosed(new Runnable() {
+                @Override
+                public void run() {
+                    filters.applyFilters(httpRequest, streamingHttpResponse.getCapturedHttpResponse());
+                }
+            });
+        } else {
+            return null;
+        }
+    }
+
     private FullHttpResponse sendRequest(final org.mockserver.model.HttpRequest httpRequest) {
         // if HttpRequest was set to null by a filter don't send request
         if (httpRequest != null) {
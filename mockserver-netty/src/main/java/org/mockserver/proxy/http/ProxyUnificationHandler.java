@@ -10,6 +10,7 @@ import io.netty.handler.codec.socks.SocksInitRequestDecoder;
 import io.netty.handler.codec.socks.SocksMessageEncoder;
 import io.netty.handler.codec.socks.SocksProtocolVersion;
 import io.netty.handler.ssl.SslHandler;
+import org.mockserver.client.http.ApacheHttpClient;
 import org.mockserver.proxy.filters.LogFilter;
 import org.mockserver.socket.SSLFactory;
 
@@ -25,16 +26,18 @@ public class ProxyUnificationHandler extends ByteToMessageDecoder {
     private final boolean sslEnabled;
     private final boolean socksEnabled;
     private final LogFilter logFilter = new LogFilter();
+    private final ApacheHttpClient apacheHttpClient;
     private final int port;
 
     public ProxyUnificationHandler(int port) {
-        this(true, true, port);
+        this(true, true, port, new ApacheHttpClient(true));
     }
 
-    private ProxyUnificationHandler(boolean sslEnabled, boolean socksEnabled, int port) {
+    private ProxyUnificationHandler(boolean sslEnabled, boolean socksEnabled, int port, ApacheHttpClient apacheHttpClient) {
         this.sslEnabled = sslEnabled;
         this.socksEnabled = socksEnabled;
         this.port = port;
+        this.apacheHttpClient = apacheHttpClient;
     }
 
 
@@ -110,7 +113,7 @@ public class ProxyUnificationHandler extends ByteToMessageDecoder {
         pipeline.addLast("ssl", new SslHandler(engine));
 
         // re-unify
-        pipeline.addLast("sslUnification", new ProxyUnificationHandler(false, socksEnabled, port));
+        pipeline.addLast("sslUnification", new ProxyUnificationHandler(false, socksEnabled, port, apacheHttpClient));
         pipeline.remove(this);
     }
 
@@ -118,17 +121,17 @@ public class ProxyUnificationHandler extends ByteToMessageDecoder {
         ChannelPipeline pipeline = ctx.pipeline();
         pipeline.addLast(SocksInitRequestDecoder.class.getSimpleName(), new SocksInitRequestDecoder());
         pipeline.addLast(SocksMessageEncoder.class.getSimpleName(), new SocksMessageEncoder());
-        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, new InetSocketAddress(port), sslEnabled));
+        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, new InetSocketAddress(port), sslEnabled, apacheHttpClient, null, null));
 
         // re-unify
-        pipeline.addLast("socksUnification", new ProxyUnificationHandler(sslEnabled, false, port));
+        pipeline.addLast("socksUnification", new ProxyUnificationHandler(sslEnabled, false, port, apacheHttpClient));
         pipeline.remove(this);
     }
 
     private void switchToHttp(ChannelHandlerContext ctx) {
         ChannelPipeline pipeline = ctx.pipeline();
         pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
-        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, new InetSocketAddress(port), sslEnabled));
+        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, new InetSocketAddress(port), sslEnabled, apacheHttpClient, null, null));
         pipeline.remove(this);
     }
 }
@@ -4,14 +4,12 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.Promise;
 import org.mockserver.logging.LoggingHandler;
 import org.mockserver.proxy.interceptor.RequestInterceptor;
-import org.mockserver.proxy.interceptor.ResponseInterceptor;
 import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,7 +57,7 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
                                             if (logger.isDebugEnabled()) {
                                                 outboundChannel.pipeline().addLast("outbound relay logger", new LoggingHandler(outboundLogger));
                                             }
-                                            outboundChannel.pipeline().addLast(new ProxyRelayHandler(ctx.channel(), 1048576, new RequestInterceptor(null), outboundLogger));
+                                            outboundChannel.pipeline().addLast(new ProxyRelayHandler(ctx.channel(), outboundLogger));
 
 
                                             // upstream
@@ -72,7 +70,8 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
                                             if (logger.isDebugEnabled()) {
                                                 ctx.channel().pipeline().addLast("upstream relay logger", new LoggingHandler(inboundLogger));
                                             }
-                                            ctx.channel().pipeline().addLast(new ProxyRelayHandler(outboundChannel, 1048576, new ResponseInterceptor(), inboundLogger));
+                                            ctx.channel().pipeline().addLast("upstream relay interceptor", new RequestInterceptor(null, false));
+                                            ctx.channel().pipeline().addLast(new ProxyRelayHandler(outboundChannel, inboundLogger));
                                         }
                                     });
                         } else {
@@ -84,7 +83,7 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
 
         final Channel inboundChannel = ctx.channel();
         bootstrap.group(inboundChannel.eventLoop())
-                .channel(NioSocketChannel.class)
+                .channel(inboundChannel.getClass())
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     public void initChannel(SocketChannel socketChannel) throws Exception {
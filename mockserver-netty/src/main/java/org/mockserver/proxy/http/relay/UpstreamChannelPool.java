@@ -0,0 +1,273 @@
+package org.mockserver.proxy.http.relay;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.mockserver.socket.SSLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLEngine;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools the connections to upstream servers, keyed by host, port and scheme, so a relayed exchange can reuse an idle
+ * connection, and the TCP and TLS handshakes already made on it, instead of connecting for every inbound connection
+ *
+ * An acquire never waits for a connection to be released, if there is no idle connection a new one is made, so the
+ * number of connections in use is only limited by the number of exchanges being relayed, at most
+ * maxIdleConnectionsPerHost released connections are kept for each upstream server and any connection released beyond
+ * that is closed, a released connection is also closed if it is not reused within the idle timeout, unless the timeout
+ * is 0, and a connection that has been closed by the upstream server is never handed out
+ *
+ * An upstream server is forgotten once it has no open connections
+ *
+ * Connections are handed out with auto read disabled and only the pool's own handlers in their pipeline, whoever
+ * acquires a connection adds their own handlers after them and removes them again, on the connection's event loop,
+ * before releasing it
+ *
+ * @author jamesdbloom
+ */
+public class UpstreamChannelPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamChannelPool.class);
+    private static final AttributeKey<Upstream> UPSTREAM = AttributeKey.valueOf("UPSTREAM");
+    private static final AttributeKey<Long> RELEASED = AttributeKey.valueOf("RELEASED");
+    private final Map<String, Upstream> upstreams = new HashMap<String, Upstream>();
+    private final int maxIdleConnectionsPerHost;
+    private final long idleTimeout;
+    private final int connectTimeout;
+
+    public UpstreamChannelPool(int maxIdleConnectionsPerHost, long idleTimeout, int connectTimeout) {
+        this.maxIdleConnectionsPerHost = Math.max(0, maxIdleConnectionsPerHost);
+        this.idleTimeout = idleTimeout;
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Acquires a connection to the upstream server, any new connection is made on the event loop provided
+     *
+     * @param eventLoop the event loop to connect on and to complete the returned future on
+     * @param channelClass the type of channel to connect with
+     * @param remoteSocketAddress the upstream server
+     * @param secure true if the connection should use SSL
+     * @return a future completed with an active connection or with the reason no connection could be made, which
+     * includes not connecting within the connect timeout
+     */
+    public Future<Channel> acquire(EventLoop eventLoop, Class<? extends Channel> channelClass, InetSocketAddress remoteSocketAddress, boolean secure) {
+        String key = remoteSocketAddress.getHostName() + ":" + remoteSocketAddress.getPort() + ":" + (secure ? "https" : "http");
+        Upstream upstream;
+        Channel channel;
+        synchronized (upstreams) {
+            upstream = upstreams.get(key);
+            if (upstream == null) {
+                upstream = new Upstream(key, remoteSocketAddress, secure);
+                upstreams.put(key, upstream);
+            }
+            channel = upstream.pollIdle();
+            if (channel == null) {
+                // counted while connecting so the upstream is not removed before the connection is made
+                upstream.connecting++;
+                // closing the idle connections that could not be reused may have removed it
+                upstreams.put(key, upstream);
+            }
+        }
+        if (channel != null) {
+            channel.attr(RELEASED).remove();
+            channel.pipeline().get(IdleHandler.class).idle = false;
+            return eventLoop.newSucceededFuture(channel);
+        } else {
+            return upstream.connect(eventLoop, channelClass);
+        }
+    }
+
+    /**
+     * Returns a connection acquired from this pool so it can be reused, the connection must be idle, with every
+     * response it has been sent read, and must not be used again by the caller
+     */
+    public void release(Channel channel) {
+        Upstream upstream = channel.attr(UPSTREAM).get();
+        if (upstream != null) {
+            upstream.release(channel);
+        } else {
+            channel.close();
+        }
+    }
+
+    @VisibleForTesting
+    int upstreamCount() {
+        synchronized (upstreams) {
+            return upstreams.size();
+        }
+    }
+
+    private boolean isIdleExpired(Channel channel) {
+        Long released = channel.attr(RELEASED).get();
+        return released != null && idleTimeout > 0 && System.currentTimeMillis() - released >= idleTimeout;
+    }
+
+    /**
+     * Closes an idle connection that is sent anything, as nothing should arrive before the next request is sent on it
+     */
+    private static class IdleHandler extends ChannelInboundHandlerAdapter {
+        private volatile boolean idle;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (idle) {
+                ReferenceCountUtil.release(msg);
+                ctx.close();
+            } else {
+                ctx.fireChannelRead(msg);
+            }
+        }
+    }
+
+    /**
+     * The connections to one upstream server, every field is guarded by the pool's map of upstreams which is
+     * removed from the map once it has no connections, so the map does not keep every upstream server ever used
+     */
+    private class Upstream {
+        private final String key;
+        private final InetSocketAddress remoteSocketAddress;
+        private final boolean secure;
+        private final Deque<Channel> idleChannels = new ArrayDeque<Channel>();
+        private int connecting;
+        private int open;
+
+        private Upstream(String key, InetSocketAddress remoteSocketAddress, boolean secure) {
+            this.key = key;
+            this.remoteSocketAddress = remoteSocketAddress;
+            this.secure = secure;
+        }
+
+        private Channel pollIdle() {
+            while (!idleChannels.isEmpty()) {
+                // most recently released first as it is the least likely to have been closed by the server
+                Channel channel = idleChannels.pollLast();
+                if (channel.isActive() && !isIdleExpired(channel)) {
+                    return channel;
+                }
+                channel.close();
+            }
+            return null;
+        }
+
+        private void release(final Channel channel) {
+            if (!channel.isActive()) {
+                return;
+            }
+            boolean keep;
+            synchronized (upstreams) {
+                keep = idleChannels.size() < maxIdleConnectionsPerHost;
+                if (keep) {
+                    channel.attr(RELEASED).set(System.currentTimeMillis());
+                    channel.pipeline().get(IdleHandler.class).idle = true;
+                    idleChannels.add(channel);
+                }
+            }
+            if (!keep) {
+                channel.close();
+                return;
+            }
+            // read while idle so a connection closed by the server is noticed
+            channel.read();
+            if (idleTimeout > 0) {
+                channel.eventLoop().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        evictIfIdle(channel);
+                    }
+                }, idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void evictIfIdle(Channel channel) {
+            boolean evict;
+            synchronized (upstreams) {
+                evict = isIdleExpired(channel) && idleChannels.remove(channel);
+            }
+            if (evict) {
+                logger.debug("Closing idle connection to " + remoteSocketAddress);
+                channel.close();
+            }
+        }
+
+        private void connected(boolean success) {
+            synchronized (upstreams) {
+                connecting--;
+                if (success) {
+                    open++;
+                } else {
+                    removeIfUnused();
+                }
+            }
+        }
+
+        private void closed(Channel channel) {
+            synchronized (upstreams) {
+                idleChannels.remove(channel);
+                open--;
+                removeIfUnused();
+            }
+        }
+
+        private void removeIfUnused() {
+            if (connecting == 0 && open == 0 && upstreams.get(key) == this) {
+                upstreams.remove(key);
+            }
+        }
+
+        private Future<Channel> connect(EventLoop eventLoop, Class<? extends Channel> channelClass) {
+            final Promise<Channel> promise = eventLoop.newPromise();
+            new Bootstrap()
+                    .group(eventLoop)
+                    .channel(channelClass)
+                    .option(ChannelOption.AUTO_READ, false)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            // add HTTPS proxy -> server support
+                            if (secure) {
+                                SSLEngine engine = SSLFactory.getInstance().sslContext().createSSLEngine();
+                                engine.setUseClientMode(true);
+                                ch.pipeline().addLast("proxy -> server ssl", new SslHandler(engine));
+                            }
+                            ch.pipeline().addLast("upstream pool", new IdleHandler());
+                        }
+                    })
+                    .connect(remoteSocketAddress)
+                    .addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            final Channel channel = future.channel();
+                            connected(future.isSuccess());
+                            if (future.isSuccess()) {
+                                channel.attr(UPSTREAM).set(Upstream.this);
+                                channel.closeFuture().addListener(new ChannelFutureListener() {
+                                    @Override
+                                    public void operationComplete(ChannelFuture future) throws Exception {
+                                        closed(channel);
+                                    }
+                                });
+                                promise.setSuccess(channel);
+                            } else {
+                                promise.setFailure(future.cause());
+                            }
+                        }
+                    });
+            return promise;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package org.mockserver.proxy.interceptor;
+
+import com.google.common.base.Charsets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites the headers of each http message in a stream of bytes as the stream passes through the pipeline, only the
+ * header block of each message is decoded and copied, the content of every message is passed on as slices of the
+ * buffers it arrived in so it is never decoded or copied
+ *
+ * The end of each message is found from its Content-Length or chunked Transfer-Encoding so that the headers of every
+ * message on a kept-alive connection are rewritten, a stream that can not be framed, such as a response without a
+ * length or after a protocol upgrade, is passed on untouched until the connection closes
+ *
+ * @author jamesdbloom
+ */
+public abstract class HttpStreamInterceptor extends ChannelInboundHandlerAdapter {
+
+    // anything with a longer header block is passed on untouched as it is unlikely to be http
+    static final int MAX_HEADER_BLOCK_SIZE = 64 * 1024;
+    private static final String HTTP_1_0 = "HTTP/1.0";
+    protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private ByteBuf headerBlock;
+    private State state = State.HEADERS;
+    private long remaining;
+    private int lineLength;
+    private boolean headerBlockComplete;
+    private boolean chunkExtension;
+    private boolean interim;
+    private volatile boolean betweenMessages = true;
+    private volatile boolean keepAlive = true;
+    private volatile long messagesCompleted;
+
+    /**
+     * Rewrites the headers of a message
+     *
+     * @param firstLine the request or status line
+     * @param headers the headers which can be changed
+     * @return true if the headers were changed
+     */
+    protected abstract boolean rewrite(String firstLine, HttpHeaders headers);
+
+    /**
+     * Called once for each message, in the order they are received, after its headers have been rewritten
+     *
+     * @param firstLine the request or status line
+     * @param headers the rewritten headers
+     * @return how the content of the message is delimited
+     */
+    protected abstract Content content(String firstLine, HttpHeaders headers);
+
+    /**
+     * @return true if the message is an interim response, such as 100 Continue, that is followed by another response
+     */
+    protected boolean isInterim(String firstLine) {
+        return false;
+    }
+
+    /**
+     * @return true if the stream is not part way through a message
+     */
+    public boolean isBetweenMessages() {
+        return betweenMessages;
+    }
+
+    /**
+     * @return false if the last message received closes the connection once it is complete
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return the number of messages received completely, not counting interim responses
+     */
+    public long messagesCompleted() {
+        return messagesCompleted;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (headerBlock != null) {
+            headerBlock.release();
+            headerBlock = null;
+        }
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        ByteBuf in = (ByteBuf) msg;
+        try {
+            int passedTo = in.readerIndex();
+            int index = in.readerIndex();
+            int end = in.writerIndex();
+            while (index < end) {
+                switch (state) {
+                    case HEADERS:
+                        passOn(ctx, in, passedTo, index);
+                        int headerStart = index;
+                        index = scanHeaders(in, index, end);
+                        if (headerBlock == null) {
+                            headerBlock = ctx.alloc().buffer(Math.max(256, index - headerStart));
+                        }
+                        headerBlock.writeBytes(in, headerStart, index - headerStart);
+                        passedTo = index;
+                        if (headerBlockComplete) {
+                            headerBlockComplete = false;
+                            headersReceived(ctx);
+                        } else if (headerBlock.readableBytes() > MAX_HEADER_BLOCK_SIZE) {
+                            untilClosed(ctx);
+                        }
+                        break;
+                    case CONTENT:
+                        int length = (int) Math.min(remaining, end - index);
+                        index += length;
+                        remaining -= length;
+                        if (remaining == 0) {
+                            messageComplete();
+                        }
+                        break;
+                    case CHUNK_SIZE:
+                        index = scanChunkSize(ctx, in, index, end);
+                        break;
+                    case CHUNK_CONTENT:
+                        length = (int) Math.min(remaining, end - index);
+                        index += length;
+                        remaining -= length;
+                        if (remaining == 0) {
+                            state = State.CHUNK_DELIMITER;
+                        }
+                        break;
+                    case CHUNK_DELIMITER:
+                        if (in.getByte(index++) == '\n') {
+                            state = State.CHUNK_SIZE;
+                        }
+                        break;
+                    case TRAILERS:
+                        index = scanTrailers(in, index, end);
+                        break;
+                    case UNTIL_CLOSED:
+                        index = end;
+                        break;
+                }
+            }
+            passOn(ctx, in, passedTo, index);
+        } finally {
+            in.release();
+        }
+    }
+
+    private void passOn(ChannelHandlerContext ctx, ByteBuf in, int from, int to) {
+        if (to > from) {
+            ctx.fireChannelRead(in.slice(from, to - from).retain());
+        }
+    }
+
+    private int scanHeaders(ByteBuf in, int index, int end) {
+        while (index < end) {
+            byte character = in.getByte(index++);
+            if (character == '\n') {
+                if (lineLength == 0 && !betweenMessages) {
+                    headerBlockComplete = true;
+                    return index;
+                }
+                lineLength = 0;
+            } else if (character != '\r') {
+                // blank lines before a message are ignored
+                betweenMessages = false;
+                lineLength++;
+            }
+        }
+        return index;
+    }
+
+    private int scanChunkSize(ChannelHandlerContext ctx, ByteBuf in, int index, int end) {
+        while (index < end) {
+            byte character = in.getByte(index++);
+            if (character == '\n') {
+                chunkExtension = false;
+                if (remaining == 0) {
+                    lineLength = 0;
+                    state = State.TRAILERS;
+                } else {
+                    state = State.CHUNK_CONTENT;
+                }
+                return index;
+            } else if (character == ';') {
+                chunkExtension = true;
+            } else if (!chunkExtension && Character.digit(character, 16) != -1) {
+                if (remaining > Long.MAX_VALUE >> 4) {
+                    logger.debug("Passing on stream untouched as chunk size is too large");
+                    untilClosed(ctx);
+                    return index;
+                }
+                remaining = remaining * 16 + Character.digit(character, 16);
+            }
+        }
+        return index;
+    }
+
+    private int scanTrailers(ByteBuf in, int index, int end) {
+        while (index < end) {
+            byte character = in.getByte(index++);
+            if (character == '\n') {
+                if (lineLength == 0) {
+                    messageComplete();
+                    return index;
+                }
+                lineLength = 0;
+            } else if (character != '\r') {
+                lineLength++;
+            }
+        }
+        return index;
+    }
+
+    private void headersReceived(ChannelHandlerContext ctx) {
+        String[] lines = headerBlock.toString(Charsets.ISO_8859_1).split("\r?\n");
+        String firstLine = null;
+        List<String> names = new ArrayList<String>();
+        List<String> values = new ArrayList<String>();
+        for (String line : lines) {
+            if (firstLine == null) {
+                if (!line.isEmpty()) {
+                    firstLine = line;
+                }
+            } else if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t') && !values.isEmpty()) {
+                // a folded header continues the value of the header line before it
+                int last = values.size() - 1;
+                values.set(last, values.get(last) + " " + line.trim());
+            } else if (!line.isEmpty()) {
+                int colon = line.indexOf(':');
+                names.add(colon != -1 ? line.substring(0, colon).trim() : line.trim());
+                values.add(colon != -1 ? line.substring(colon + 1).trim() : "");
+            }
+        }
+        HttpHeaders headers = new DefaultHttpHeaders();
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                headers.add(names.get(i), values.get(i));
+            }
+        } catch (IllegalArgumentException iae) {
+            logger.debug("Passing on stream untouched as headers are invalid", iae);
+            untilClosed(ctx);
+            return;
+        }
+        if (rewrite(firstLine, headers)) {
+            StringBuilder rewritten = new StringBuilder(headerBlock.readableBytes() + 64);
+            rewritten.append(firstLine).append("\r\n");
+            for (Map.Entry<String, String> header : headers) {
+                rewritten.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            rewritten.append("\r\n");
+            headerBlock.release();
+            headerBlock = Unpooled.copiedBuffer(rewritten, Charsets.ISO_8859_1);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("INTERCEPTED HEADERS: " + headerBlock.toString(Charsets.ISO_8859_1));
+        }
+        ctx.fireChannelRead(headerBlock);
+        headerBlock = null;
+
+        interim = isInterim(firstLine);
+        String connection = headers.get(HttpHeaders.Names.CONNECTION);
+        if (HttpHeaders.Values.CLOSE.equalsIgnoreCase(connection)) {
+            keepAlive = false;
+        } else if (HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(connection)) {
+            keepAlive = true;
+        } else {
+            keepAlive = !(firstLine.startsWith(HTTP_1_0) || firstLine.endsWith(HTTP_1_0));
+        }
+
+        switch (content(firstLine, headers)) {
+            case UNTIL_CLOSED:
+                state = State.UNTIL_CLOSED;
+                keepAlive = false;
+                break;
+            case DELIMITED:
+                String transferEncoding = headers.get(HttpHeaders.Names.TRANSFER_ENCODING);
+                String contentLength = headers.get(HttpHeaders.Names.CONTENT_LENGTH);
+                if (transferEncoding != null && transferEncoding.toLowerCase().contains(HttpHeaders.Values.CHUNKED)) {
+                    remaining = 0;
+                    state = State.CHUNK_SIZE;
+                    break;
+                } else if (contentLength != null) {
+                    try {
+                        remaining = Long.parseLong(contentLength);
+                    } catch (NumberFormatException nfe) {
+                        logger.debug("Passing on stream untouched as Content-Length [" + contentLength + "] is invalid");
+                        state = State.UNTIL_CLOSED;
+                        keepAlive = false;
+                        break;
+                    }
+                    if (remaining > 0) {
+                        state = State.CONTENT;
+                        break;
+                    }
+                }
+                messageComplete();
+                break;
+            case NONE:
+                messageComplete();
+                break;
+        }
+    }
+
+    private void untilClosed(ChannelHandlerContext ctx) {
+        if (headerBlock != null) {
+            ctx.fireChannelRead(headerBlock);
+            headerBlock = null;
+        }
+        state = State.UNTIL_CLOSED;
+        keepAlive = false;
+    }
+
+    private void messageComplete() {
+        state = State.HEADERS;
+        lineLength = 0;
+        if (!interim) {
+            messagesCompleted++;
+        }
+        betweenMessages = true;
+    }
+
+    private enum State {
+        HEADERS, CONTENT, CHUNK_SIZE, CHUNK_CONTENT, CHUNK_DELIMITER, TRAILERS, UNTIL_CLOSED
+    }
+
+    /**
+     * How the content of a message is delimited
+     */
+    protected enum Content {
+        // the message has no content whatever its headers say
+        NONE,
+        // the content is delimited by the Content-Length or chunked Transfer-Encoding, if neither there is no content
+        DELIMITED,
+        // the content lasts until the connection is closed
+        UNTIL_CLOSED
+    }
+}
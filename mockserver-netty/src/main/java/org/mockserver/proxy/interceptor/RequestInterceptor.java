@@ -1,76 +1,60 @@
 package org.mockserver.proxy.interceptor;
 
-import com.google.common.base.Charsets;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.http.*;
-import org.slf4j.Logger;
+import io.netty.handler.codec.http.HttpHeaders;
 
 import java.net.InetSocketAddress;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
+ * Rewrites the Host header of every request to the remote server, if there is one, and removes Accept-Encoding so
+ * responses are not compressed, the Connection header is passed on so the client decides if the connection is kept alive
+ *
  * @author jamesdbloom
  */
-public class RequestInterceptor implements Interceptor {
+public class RequestInterceptor extends HttpStreamInterceptor {
 
     private final InetSocketAddress remoteSocketAddress;
-    private final Decoder httpRequestDecoder = new Decoder();
-    private final Encoder httpRequestEncoder = new Encoder();
-
-    public RequestInterceptor(InetSocketAddress remoteSocketAddress) {
-
+    private final boolean recordMethods;
+    private final Queue<String> methods = new ConcurrentLinkedQueue<String>();
+
+    /**
+     * @param remoteSocketAddress the remote server to set as the Host of every request, or null to leave Host unchanged
+     * @param recordMethods true if a ResponseInterceptor reads the method of each request, otherwise they are not kept
+     */
+    public RequestInterceptor(InetSocketAddress remoteSocketAddress, boolean recordMethods) {
         this.remoteSocketAddress = remoteSocketAddress;
+        this.recordMethods = recordMethods;
     }
 
     @Override
-    public ByteBuf intercept(ChannelHandlerContext ctx, ByteBuf channelBuffer, Logger logger) throws Exception {
-        ByteBuf channelBufferCopy = Unpooled.copiedBuffer(channelBuffer);
-        logger.debug("INTERCEPTING - REQUEST: " + channelBuffer.toString(Charsets.UTF_8));
-        try {
-            List<ByteBuf> allRequestRawChunks = new ArrayList<ByteBuf>();
-            List<Object> requestHttpFormattedChunks = new ArrayList<Object>();
-            httpRequestDecoder.callDecode(ctx, channelBufferCopy, requestHttpFormattedChunks);
-
-            for (Object httpChunk : requestHttpFormattedChunks) {
-                if (httpChunk instanceof HttpRequest) {
-                    HttpRequest httpRequest = (HttpRequest) httpChunk;
-                    httpRequest.headers().remove(HttpHeaders.Names.ACCEPT_ENCODING);
-                    if (remoteSocketAddress != null) {
-                        httpRequest.headers().set(HttpHeaders.Names.HOST, remoteSocketAddress.getHostName() + ":" + remoteSocketAddress.getPort());
-                    }
-                    httpRequest.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
-                }
-                logger.debug("HTTP-FORMATTED -REQUEST- " + httpChunk.getClass().getSimpleName() + " -- " + httpChunk);
-                if (!(httpChunk instanceof LastHttpContent)) {
-                    List<Object> requestRawChunks = new ArrayList<Object>();
-                    httpRequestEncoder.encode(ctx, httpChunk, requestRawChunks);
-                    for (Object rawChunk : requestRawChunks) {
-                        if (rawChunk instanceof ByteBuf) {
-                            allRequestRawChunks.add((ByteBuf) rawChunk);
-                        }
-                    }
-                }
+    protected boolean rewrite(String requestLine, HttpHeaders headers) {
+        boolean rewritten = headers.contains(HttpHeaders.Names.ACCEPT_ENCODING);
+        headers.remove(HttpHeaders.Names.ACCEPT_ENCODING);
+        if (remoteSocketAddress != null) {
+            String host = remoteSocketAddress.getHostName() + ":" + remoteSocketAddress.getPort();
+            if (!host.equals(headers.get(HttpHeaders.Names.HOST))) {
+                headers.set(HttpHeaders.Names.HOST, host);
+                rewritten = true;
             }
-
-            return Unpooled.copiedBuffer(allRequestRawChunks.toArray(new ByteBuf[allRequestRawChunks.size()]));
-        } finally {
-            channelBufferCopy.release();
         }
+        return rewritten;
     }
 
-
-    private class Encoder extends HttpRequestEncoder {
-        public void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
-            super.encode(ctx, msg, out);
+    @Override
+    protected Content content(String requestLine, HttpHeaders headers) {
+        if (recordMethods) {
+            // the method decides whether the response has content
+            int space = requestLine.indexOf(' ');
+            methods.add(space != -1 ? requestLine.substring(0, space) : requestLine);
         }
+        return Content.DELIMITED;
     }
 
-    private class Decoder extends HttpRequestDecoder {
-        public void callDecode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
-            super.callDecode(ctx, in, out);
-        }
+    /**
+     * @return the method of the oldest request that has not yet been answered
+     */
+    String nextUnansweredMethod() {
+        return methods.poll();
     }
 }
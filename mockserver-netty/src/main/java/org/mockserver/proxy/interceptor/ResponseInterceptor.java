@@ -1,71 +1,63 @@
 package org.mockserver.proxy.interceptor;
 
-import com.google.common.base.Charsets;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.http.*;
-import org.slf4j.Logger;
-
-import java.util.ArrayList;
-import java.util.List;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
 
 /**
+ * Passes on responses without rewriting them, only finding where each response ends so that the connection they
+ * arrived on can be reused once every request sent on it has been answered
+ *
  * @author jamesdbloom
  */
-public class ResponseInterceptor implements Interceptor {
+public class ResponseInterceptor extends HttpStreamInterceptor {
 
-    private final Decoder httpResponseDecoder = new Decoder();
-    private final Encoder httpResponseEncoder = new Encoder();
+    private final RequestInterceptor requestInterceptor;
 
-    @Override
-    public ByteBuf intercept(ChannelHandlerContext ctx, ByteBuf channelBuffer, Logger logger) throws Exception {
-        if (true) {
-            return channelBuffer;
-        }
-        ByteBuf channelBufferCopy = Unpooled.copiedBuffer(channelBuffer);
-        logger.debug("INTERCEPTING - RESPONSE: " + channelBuffer.toString(Charsets.UTF_8));
-        try {
-            List<ByteBuf> allResponseRawChunks = new ArrayList<ByteBuf>();
-            List<Object> responseHttpFormattedChunks = new ArrayList<Object>();
-            httpResponseDecoder.callDecode(ctx, channelBufferCopy, responseHttpFormattedChunks);
+    /**
+     * @param requestInterceptor the interceptor of the requests being answered, if null no request is a HEAD request
+     */
+    public ResponseInterceptor(RequestInterceptor requestInterceptor) {
+        this.requestInterceptor = requestInterceptor;
+    }
 
-            for (Object httpChunk : responseHttpFormattedChunks) {
-                if (httpChunk instanceof HttpResponse) {
-                    HttpResponse httpResponse = (HttpResponse) httpChunk;
-                    httpResponse.headers().remove(HttpHeaders.Names.ACCEPT_ENCODING);
-                    httpResponse.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
-                }
-                logger.debug("HTTP-FORMATTED -RESPONSE- " + httpChunk.getClass().getSimpleName() + " -- " + httpChunk);
-                if (!(httpChunk instanceof LastHttpContent)) {
-                    List<Object> responseRawChunks = new ArrayList<Object>();
-//                    if(httpChunk instanceof DefaultHttpContent) {
-//                        httpChunk = ((DefaultHttpContent)httpChunk).content();
-//                    }
-                    httpResponseEncoder.encode(ctx, httpChunk, responseRawChunks);
-                    for (Object rawChunk : responseRawChunks) {
-                        if (rawChunk instanceof ByteBuf) {
-                            allResponseRawChunks.add((ByteBuf) rawChunk);
-                        }
-                    }
-                }
-            }
+    @Override
+    protected boolean rewrite(String statusLine, HttpHeaders headers) {
+        return false;
+    }
 
-            return Unpooled.copiedBuffer(allResponseRawChunks.toArray(new ByteBuf[allResponseRawChunks.size()]));
-        } finally {
-            channelBufferCopy.release();
+    @Override
+    protected Content content(String statusLine, HttpHeaders headers) {
+        int status = status(statusLine);
+        if (status == HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+            return Content.UNTIL_CLOSED;
+        }
+        if (isInterim(statusLine)) {
+            return Content.NONE;
+        }
+        String method = (requestInterceptor != null ? requestInterceptor.nextUnansweredMethod() : null);
+        if (HttpMethod.HEAD.name().equals(method) || status == HttpResponseStatus.NO_CONTENT.code() || status == HttpResponseStatus.NOT_MODIFIED.code()) {
+            return Content.NONE;
+        }
+        String transferEncoding = headers.get(HttpHeaders.Names.TRANSFER_ENCODING);
+        if (headers.contains(HttpHeaders.Names.CONTENT_LENGTH) || (transferEncoding != null && transferEncoding.toLowerCase().contains(HttpHeaders.Values.CHUNKED))) {
+            return Content.DELIMITED;
         }
+        return Content.UNTIL_CLOSED;
     }
 
-    private class Encoder extends HttpResponseEncoder {
-        public void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
-            super.encode(ctx, msg, out);
-        }
+    @Override
+    protected boolean isInterim(String statusLine) {
+        int status = status(statusLine);
+        return status >= 100 && status < 200 && status != HttpResponseStatus.SWITCHING_PROTOCOLS.code();
     }
 
-    private class Decoder extends HttpResponseDecoder {
-        public void callDecode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
-            super.callDecode(ctx, in, out);
+    private int status(String statusLine) {
+        String[] parts = statusLine.split(" ");
+        try {
+            return (parts.length > 1 ? Integer.parseInt(parts[1]) : -1);
+        } catch (NumberFormatException nfe) {
+            return -1;
         }
     }
 }
@@ -0,0 +1,122 @@
+package org.mockserver.socket;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.mockserver.configuration.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * Chooses between the NIO transport and the native epoll transport, which is only used when the
+ * "mockserver.nativeTransport" system property is true and the native library can be loaded on this platform
+ *
+ * With the native transport each port is bound by "mockserver.acceptorThreadCount" server channels using SO_REUSEPORT,
+ * so that connections are accepted on multiple threads, with NIO each port is bound by a single server channel
+ *
+ * @author jamesdbloom
+ */
+public class NettyTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyTransport.class);
+    // the low water mark of a new channel before any options are applied
+    private static final int DEFAULT_CHANNEL_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+    private static Boolean nativeTransportAvailable;
+    private final boolean nativeTransport;
+    private final int acceptorThreadCount;
+
+    NettyTransport(boolean nativeTransport, int acceptorThreadCount) {
+        this.nativeTransport = nativeTransport;
+        this.acceptorThreadCount = Math.max(1, acceptorThreadCount);
+    }
+
+    public static NettyTransport transport() {
+        boolean nativeTransport = SystemProperties.nativeTransport() && isNativeTransportAvailable();
+        return new NettyTransport(nativeTransport, SystemProperties.acceptorThreadCount());
+    }
+
+    static synchronized boolean isNativeTransportAvailable() {
+        if (nativeTransportAvailable == null) {
+            nativeTransportAvailable = false;
+            if (System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH).contains("linux")) {
+                try {
+                    // loads the native library
+                    Class.forName("io.netty.channel.epoll.Native");
+                    nativeTransportAvailable = true;
+                } catch (Throwable throwable) {
+                    logger.warn("Native transport is not available, using NIO transport - " + throwable.getMessage());
+                }
+            }
+        }
+        return nativeTransportAvailable;
+    }
+
+    public boolean isNative() {
+        return nativeTransport;
+    }
+
+    public EventLoopGroup acceptorEventLoopGroup() {
+        return eventLoopGroup(nativeTransport ? acceptorThreadCount : 1);
+    }
+
+    public EventLoopGroup eventLoopGroup(int threadCount) {
+        return (nativeTransport ? new EpollEventLoopGroup(threadCount) : new NioEventLoopGroup(threadCount));
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return (nativeTransport ? EpollServerSocketChannel.class : NioServerSocketChannel.class);
+    }
+
+    /**
+     * Sets the server channel class and the server and child channel options on the bootstrap
+     */
+    public ServerBootstrap configure(ServerBootstrap serverBootstrap) {
+        serverBootstrap
+                .channel(serverChannelClass())
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, SystemProperties.tcpNoDelay());
+        int highWaterMark = SystemProperties.writeBufferHighWaterMark();
+        int lowWaterMark = SystemProperties.writeBufferLowWaterMark();
+        if (lowWaterMark > highWaterMark) {
+            throw new IllegalArgumentException("Write buffer low water mark [" + lowWaterMark + "] can not be greater than write buffer high water mark [" + highWaterMark + "]");
+        }
+        // the options are applied in order and neither water mark may cross the current value of the other
+        if (highWaterMark >= DEFAULT_CHANNEL_WRITE_BUFFER_LOW_WATER_MARK) {
+            serverBootstrap
+                    .childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, highWaterMark)
+                    .childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, lowWaterMark);
+        } else {
+            serverBootstrap
+                    .childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, lowWaterMark)
+                    .childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, highWaterMark);
+        }
+        if (nativeTransport) {
+            serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        return serverBootstrap;
+    }
+
+    /**
+     * Binds the port once for each acceptor thread and waits for every bind to complete
+     *
+     * @return the future of the first server channel bound to the port
+     */
+    public ChannelFuture bind(ServerBootstrap serverBootstrap, int port) throws InterruptedException {
+        ChannelFuture channelFuture = serverBootstrap.bind(port).sync();
+        if (nativeTransport) {
+            for (int i = 1; i < acceptorThreadCount; i++) {
+                serverBootstrap.bind(port).sync();
+            }
+        }
+        return channelFuture;
+    }
+}
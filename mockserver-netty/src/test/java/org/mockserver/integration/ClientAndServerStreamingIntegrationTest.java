@@ -0,0 +1,73 @@
+package org.mockserver.integration;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.mockserver.integration.server.AbstractClientServerIntegrationTest;
+import org.mockserver.configuration.SystemProperties;
+import org.mockserver.integration.testserver.TestServer;
+import org.mockserver.socket.PortFactory;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+/**
+ * Runs the client server integration tests with forwarded responses streamed to the client as they are received
+ *
+ * @author jamesdbloom
+ */
+public class ClientAndServerStreamingIntegrationTest extends AbstractClientServerIntegrationTest {
+
+    private static final int SERVER_HTTP_PORT = PortFactory.findFreePort();
+    private static final int SERVER_HTTPS_PORT = PortFactory.findFreePort();
+    private final static int TEST_SERVER_HTTP_PORT = PortFactory.findFreePort();
+    private final static int TEST_SERVER_HTTPS_PORT = PortFactory.findFreePort();
+    private static TestServer testServer = new TestServer();
+
+    @BeforeClass
+    public static void startServer() throws InterruptedException, ExecutionException {
+        // stream forwarded responses
+        SystemProperties.streamForwardedResponses(true);
+
+        // start mock server and client
+        mockServerClient = startClientAndServer(SERVER_HTTP_PORT, SERVER_HTTPS_PORT);
+
+        // start test server
+        testServer.startServer(TEST_SERVER_HTTP_PORT, TEST_SERVER_HTTPS_PORT);
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        // stop mock server and client
+        if (mockServerClient instanceof ClientAndServer) {
+            mockServerClient.stop();
+        }
+
+        // stop test server
+        if (testServer != null) {
+            testServer.stop();
+        }
+
+        System.clearProperty("mockserver.streamForwardedResponses");
+    }
+
+    @Override
+    public int getMockServerPort() {
+        return SERVER_HTTP_PORT;
+    }
+
+    @Override
+    public int getMockServerSecurePort() {
+        return SERVER_HTTPS_PORT;
+    }
+
+    @Override
+    public int getTestServerPort() {
+        return TEST_SERVER_HTTP_PORT;
+    }
+
+    @Override
+    public int getTestServerSecurePort() {
+        return TEST_SERVER_HTTPS_PORT;
+    }
+}
@@ -8,11 +8,14 @@ import org.mockserver.model.Header;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.HttpStatusCode;
 
+import java.nio.ReadOnlyBufferException;
 import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -63,6 +66,91 @@ public class MockServerToNettyResponseMapperTest {
         assertTrue(defaultFullHttpResponse.headers().isEmpty());
     }
 
+    @Test
+    public void shouldMapBinaryBodyToNettyResponse() {
+        // given
+        byte[] body = new byte[]{0, 1, 2, (byte) 255};
+        HttpResponse httpResponse = new HttpResponse().withBody(body);
+
+        // when
+        DefaultFullHttpResponse defaultFullHttpResponse = new MockServerToNettyResponseMapper().mapMockServerResponseToNettyResponse(httpResponse);
+
+        // then
+        byte[] content = new byte[defaultFullHttpResponse.content().readableBytes()];
+        defaultFullHttpResponse.content().readBytes(content);
+        assertArrayEquals(body, content);
+    }
+
+    @Test
+    public void shouldShareCachedBodyBetweenResponses() {
+        // given
+        HttpResponse httpResponse = new HttpResponse().withBody("somebody");
+        MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
+        mockServerToNettyResponseMapper.cacheBody(httpResponse);
+
+        // when
+        DefaultFullHttpResponse firstResponse = mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse);
+        assertEquals("some", firstResponse.content().readBytes(4).toString(Charsets.UTF_8));
+        firstResponse.release();
+        DefaultFullHttpResponse secondResponse = mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse);
+
+        // then
+        assertEquals("somebody", secondResponse.content().toString(Charsets.UTF_8));
+        assertEquals(1, secondResponse.content().refCnt());
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void shouldNotAllowCachedBodyToBeModified() {
+        // given
+        HttpResponse httpResponse = new HttpResponse().withBody("somebody");
+        MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
+        mockServerToNettyResponseMapper.cacheBody(httpResponse);
+
+        // when
+        mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse).content().setByte(0, 'S');
+    }
+
+    @Test
+    public void shouldCompileResponseForKeepAliveAndClosedConnections() {
+        // given
+        HttpResponse httpResponse = new HttpResponse();
+        httpResponse.withStatusCode(HttpStatusCode.OK_200.code());
+        httpResponse.withBody("somebody");
+        httpResponse.withHeaders(new Header("headerName1", "headerValue1"));
+        httpResponse.withCookies(new Cookie("cookieName1", "cookieValue1"));
+        MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
+
+        // when
+        mockServerToNettyResponseMapper.compileResponse(httpResponse);
+
+        // then
+        assertEquals("HTTP/1.1 200 OK\r\n" +
+                "headerName1: headerValue1\r\n" +
+                "Set-Cookie: cookieName1=cookieValue1\r\n" +
+                "Content-Length: 8\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n" +
+                "somebody", mockServerToNettyResponseMapper.compiledResponse(httpResponse, true).toString(Charsets.UTF_8));
+        assertEquals("HTTP/1.1 200 OK\r\n" +
+                "headerName1: headerValue1\r\n" +
+                "Set-Cookie: cookieName1=cookieValue1\r\n" +
+                "Content-Length: 8\r\n" +
+                "Connection: close\r\n" +
+                "\r\n" +
+                "somebody", mockServerToNettyResponseMapper.compiledResponse(httpResponse, false).toString(Charsets.UTF_8));
+    }
+
+    @Test
+    public void shouldReturnNullForResponseThatIsNotCompiled() {
+        // given
+        MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
+        mockServerToNettyResponseMapper.compileResponse(new HttpResponse().withBody("somebody"));
+
+        // then
+        assertNull(mockServerToNettyResponseMapper.compiledResponse(new HttpResponse().withBody("somebody"), true));
+        assertNull(mockServerToNettyResponseMapper.compiledResponse(null, true));
+    }
+
     @Test
     public void shouldMapNullResponseToNettyResponse() {
         // when
@@ -1,12 +1,25 @@
 package org.mockserver.mockserver;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
+import io.netty.util.CharsetUtil;
+import io.netty.util.DefaultAttributeMap;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.InjectMocks;
+import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.mockserver.client.http.ApacheHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
@@ -17,6 +30,7 @@ import org.mockserver.mock.Expectation;
 import org.mockserver.mock.MockServerMatcher;
 import org.mockserver.mock.action.HttpForwardActionHandler;
 import org.mockserver.mock.action.HttpResponseActionHandler;
+import org.mockserver.model.Delay;
 import org.mockserver.model.HttpForward;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
@@ -24,10 +38,17 @@ import org.mockserver.model.NettyHttpRequest;
 import org.mockserver.proxy.filters.Filters;
 import org.mockserver.proxy.filters.LogFilter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.mockserver.matchers.Times.once;
@@ -240,4 +261,213 @@ public class MockServerHandlerTest {
         verify(mockServerMatcher).handle(request);
         assertThat(result.getStatus(), is(HttpResponseStatus.NOT_FOUND));
     }
+
+    @Test
+    public void shouldScheduleDelayedResponseInsteadOfBlocking() {
+        // given
+        HttpRequest request = request();
+        HttpResponse response = response().withDelay(new Delay(TimeUnit.SECONDS, 5));
+        ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        EventExecutor eventExecutor = mock(EventExecutor.class);
+        when(ctx.executor()).thenReturn(eventExecutor);
+        final DefaultAttributeMap attributeMap = new DefaultAttributeMap();
+        when(ctx.attr(Matchers.<AttributeKey<Object>>any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return attributeMap.attr((AttributeKey<?>) invocation.getArguments()[0]);
+            }
+        });
+
+        when(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(any(NettyHttpRequest.class))).thenReturn(request);
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(response);
+        when(httpResponseActionHandler.handle(any(HttpResponse.class), any(HttpRequest.class))).thenReturn(response);
+        when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(response)).thenReturn(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+
+        // when
+        mockServerHandler.channelRead0(ctx, new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some_path"));
+
+        // then
+        verify(eventExecutor).schedule(any(Runnable.class), eq(5L), eq(TimeUnit.SECONDS));
+        verify(ctx, never()).write(any());
+    }
+
+    @Test
+    public void shouldForwardOnActionHandlerExecutorInsteadOfEventLoop() {
+        // given
+        EventExecutorGroup actionHandlerExecutorGroup = mock(EventExecutorGroup.class);
+        EventExecutor actionHandlerExecutor = mock(EventExecutor.class);
+        when(actionHandlerExecutorGroup.next()).thenReturn(actionHandlerExecutor);
+        MockServerHandler mockServerHandler = new MockServerHandler(mockServerMatcher, logFilter, mock(MockServer.class), false, actionHandlerExecutorGroup);
+        ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        final DefaultAttributeMap attributeMap = new DefaultAttributeMap();
+        when(ctx.attr(Matchers.<AttributeKey<Object>>any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return attributeMap.attr((AttributeKey<?>) invocation.getArguments()[0]);
+            }
+        });
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(forward().withHost("localhost").withPort(1080));
+
+        // when
+        mockServerHandler.channelRead0(ctx, new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some_path"));
+
+        // then
+        verify(actionHandlerExecutor).execute(any(Runnable.class));
+        verify(ctx, never()).write(any());
+        verify(ctx, never()).writeAndFlush(any());
+    }
+
+    @Test
+    public void shouldWriteCompiledResponseForAddedExpectation() {
+        // given
+        MockServerHandler mockServerHandler = new MockServerHandler(new MockServerMatcher(), new LogFilter(), mock(MockServer.class), false);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(), mockServerHandler);
+        String expectation = new ExpectationSerializer().serialize(new Expectation(request().withPath("/some_path"), Times.unlimited()).thenRespond(response().withBody("some_body")));
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "PUT /expectation HTTP/1.1\r\n" +
+                "Content-Length: " + expectation.length() + "\r\n" +
+                "\r\n" +
+                expectation, CharsetUtil.UTF_8));
+        readOutbound(channel);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "GET /some_path HTTP/1.1\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readOutbound(channel), is("" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 9\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n" +
+                "some_body"));
+    }
+
+    @Test
+    public void shouldWritePipelinedResponsesInOrderWithOneFlush() {
+        // given
+        MockServerMatcher mockServerMatcher = new MockServerMatcher();
+        mockServerMatcher.when(request().withPath("/path_one"), Times.unlimited()).thenRespond(response().withBody("body_one"));
+        mockServerMatcher.when(request().withPath("/path_two"), Times.unlimited()).thenRespond(response().withBody("body_two"));
+        MockServerHandler mockServerHandler = new MockServerHandler(mockServerMatcher, new LogFilter(), mock(MockServer.class), false);
+        final AtomicInteger flushes = new AtomicInteger();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(ChannelHandlerContext ctx) throws Exception {
+                flushes.incrementAndGet();
+                super.flush(ctx);
+            }
+        }, new HttpServerCodec(), mockServerHandler);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "GET /path_one HTTP/1.1\r\n" +
+                "\r\n" +
+                "GET /path_two HTTP/1.1\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(flushes.get(), is(1));
+        assertThat(readOutbound(channel), is("" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 8\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n" +
+                "body_one" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 8\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n" +
+                "body_two"));
+    }
+
+    @Test
+    public void shouldCloseConnectionOnlyAfterStopResponseWritten() {
+        // given
+        MockServer mockServer = mock(MockServer.class);
+        MockServerHandler mockServerHandler = new MockServerHandler(new MockServerMatcher(), new LogFilter(), mockServer, false);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(), mockServerHandler);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "PUT /stop HTTP/1.1\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readOutbound(channel), is("" +
+                "HTTP/1.1 202 Accepted\r\n" +
+                "Content-Length: 0\r\n" +
+                "Connection: close\r\n" +
+                "\r\n"));
+        assertThat(channel.isOpen(), is(false));
+        verify(mockServer).stop();
+    }
+
+    @Test
+    public void shouldCloseIdleConnection() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(), mockServerHandler);
+
+        // when
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+
+        // then
+        assertThat(channel.isOpen(), is(false));
+    }
+
+    @Test
+    public void shouldNotCloseIdleConnectionWaitingForResponse() {
+        // given
+        EventExecutorGroup actionHandlerExecutorGroup = mock(EventExecutorGroup.class);
+        when(actionHandlerExecutorGroup.next()).thenReturn(mock(EventExecutor.class));
+        MockServerHandler mockServerHandler = new MockServerHandler(mockServerMatcher, logFilter, mock(MockServer.class), false, actionHandlerExecutorGroup);
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(forward().withHost("localhost").withPort(1080));
+        EmbeddedChannel channel = new EmbeddedChannel(mockServerHandler);
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some_path"));
+
+        // when
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+
+        // then
+        assertThat(channel.isOpen(), is(true));
+    }
+
+    private String readOutbound(EmbeddedChannel channel) {
+        StringBuilder outbound = new StringBuilder();
+        for (Object buffer = channel.readOutbound(); buffer != null; buffer = channel.readOutbound()) {
+            outbound.append(((ByteBuf) buffer).toString(CharsetUtil.UTF_8));
+        }
+        return outbound.toString();
+    }
+
+    @Test
+    public void shouldKeepChunkedRequestsFromDifferentChannelsSeparate() {
+        // given
+        EmbeddedChannel channelOne = new EmbeddedChannel(mockServerHandler);
+        EmbeddedChannel channelTwo = new EmbeddedChannel(mockServerHandler);
+        // the body is released once the request has been mapped so it is read when the request is mapped
+        final List<String> mappedRequests = new ArrayList<String>();
+        when(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(any(NettyHttpRequest.class))).thenAnswer(new Answer<HttpRequest>() {
+            @Override
+            public HttpRequest answer(InvocationOnMock invocation) throws Throwable {
+                NettyHttpRequest nettyHttpRequest = (NettyHttpRequest) invocation.getArguments()[0];
+                mappedRequests.add(nettyHttpRequest.path() + " " + nettyHttpRequest.content().toString(CharsetUtil.UTF_8));
+                return null;
+            }
+        });
+
+        // when
+        channelOne.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/path_one"));
+        channelTwo.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/path_two"));
+        channelOne.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("body_", CharsetUtil.UTF_8)));
+        channelTwo.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("other_", CharsetUtil.UTF_8)));
+        channelTwo.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("two", CharsetUtil.UTF_8)));
+        channelOne.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("one", CharsetUtil.UTF_8)));
+
+        // then
+        assertThat(mappedRequests, is(Arrays.asList("/path_two other_two", "/path_one body_one")));
+        assertThat(((FullHttpResponse) channelOne.readOutbound()).getStatus(), is(HttpResponseStatus.NOT_FOUND));
+        assertThat(((FullHttpResponse) channelTwo.readOutbound()).getStatus(), is(HttpResponseStatus.NOT_FOUND));
+    }
 }
@@ -0,0 +1,88 @@
+package org.mockserver.mockserver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class PipelinedResponsesTest {
+
+    private Runnable write(final List<String> written, final String response) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                written.add(response);
+            }
+        };
+    }
+
+    @Test
+    public void shouldWriteResponsesInRequestOrder() {
+        // given
+        PipelinedResponses pipelinedResponses = new PipelinedResponses();
+        List<String> written = new ArrayList<String>();
+        long first = pipelinedResponses.nextRequest();
+        long second = pipelinedResponses.nextRequest();
+        long third = pipelinedResponses.nextRequest();
+
+        // when
+        assertFalse(pipelinedResponses.write(third, write(written, "third")));
+        assertFalse(pipelinedResponses.write(second, write(written, "second")));
+
+        // then
+        assertEquals(new ArrayList<String>(), written);
+        assertTrue(pipelinedResponses.hasPendingResponses());
+
+        // when
+        assertTrue(pipelinedResponses.write(first, write(written, "first")));
+
+        // then
+        assertEquals(Arrays.asList("first", "second", "third"), written);
+        assertFalse(pipelinedResponses.hasPendingResponses());
+    }
+
+    @Test
+    public void shouldWriteNextResponseImmediately() {
+        // given
+        PipelinedResponses pipelinedResponses = new PipelinedResponses();
+        List<String> written = new ArrayList<String>();
+
+        // when
+        assertTrue(pipelinedResponses.write(pipelinedResponses.nextRequest(), write(written, "first")));
+        assertTrue(pipelinedResponses.write(pipelinedResponses.nextRequest(), write(written, "second")));
+
+        // then
+        assertEquals(Arrays.asList("first", "second"), written);
+        assertFalse(pipelinedResponses.hasPendingResponses());
+    }
+
+    @Test
+    public void shouldHoldLaterResponsesUntilStreamComplete() {
+        // given
+        PipelinedResponses pipelinedResponses = new PipelinedResponses();
+        List<String> written = new ArrayList<String>();
+        long first = pipelinedResponses.nextRequest();
+        long second = pipelinedResponses.nextRequest();
+
+        // when
+        assertTrue(pipelinedResponses.writeStreamed(first, write(written, "first")));
+        assertFalse(pipelinedResponses.write(second, write(written, "second")));
+
+        // then
+        assertEquals(Arrays.asList("first"), written);
+        assertTrue(pipelinedResponses.hasPendingResponses());
+
+        // when
+        assertTrue(pipelinedResponses.streamComplete());
+
+        // then
+        assertEquals(Arrays.asList("first", "second"), written);
+        assertFalse(pipelinedResponses.hasPendingResponses());
+    }
+}
@@ -0,0 +1,103 @@
+package org.mockserver.mockserver;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Test;
+import org.mockserver.client.http.StreamingHttpResponse;
+import org.mockserver.model.HttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class StreamingResponseWriterTest {
+
+    private final Executor sameThreadExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void shouldWriteBodyInChunksFollowedByLastContent() throws IOException {
+        // given
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = embeddedChannel.pipeline().firstContext();
+        CloseableHttpResponse clientResponse = mock(CloseableHttpResponse.class);
+        when(clientResponse.getEntity()).thenReturn(new ByteArrayEntity(new byte[2 * StreamingResponseWriter.CHUNK_SIZE + 100]));
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse(), clientResponse, 1024);
+
+        // when
+        new StreamingResponseWriter(null, sameThreadExecutor).writeBody(ctx, new PipelinedResponses(), streamingHttpResponse);
+        embeddedChannel.runPendingTasks();
+
+        // then
+        assertThat(embeddedChannel.isOpen(), is(true));
+        int totalBytes = 0;
+        for (int chunk = 0; chunk < 3; chunk++) {
+            HttpContent httpContent = (HttpContent) embeddedChannel.readOutbound();
+            totalBytes += httpContent.content().readableBytes();
+            httpContent.release();
+        }
+        assertThat(totalBytes, is(2 * StreamingResponseWriter.CHUNK_SIZE + 100));
+        assertThat(embeddedChannel.readOutbound() == LastHttpContent.EMPTY_LAST_CONTENT, is(true));
+        verify(clientResponse).close();
+    }
+
+    @Test
+    public void shouldStopWritingBodyWhenChannelClosed() throws IOException {
+        // given
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = embeddedChannel.pipeline().firstContext();
+        CloseableHttpResponse clientResponse = mock(CloseableHttpResponse.class);
+        when(clientResponse.getEntity()).thenReturn(new ByteArrayEntity(new byte[100]));
+        StreamingHttpResponse streamingHttpResponse = new StreamingHttpResponse(new HttpResponse(), clientResponse, 1024);
+        embeddedChannel.close();
+
+        // when
+        new StreamingResponseWriter(null, sameThreadExecutor).writeBody(ctx, new PipelinedResponses(), streamingHttpResponse);
+
+        // then
+        assertThat(embeddedChannel.readOutbound() == null, is(true));
+        verify(clientResponse).close();
+    }
+
+    @Test
+    public void shouldCloseConnectionWhenResponseCanNotBeWritten() {
+        // given
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = embeddedChannel.pipeline().firstContext();
+        EventExecutorGroup executorGroup = mock(EventExecutorGroup.class);
+        when(executorGroup.next()).thenReturn(ImmediateEventExecutor.INSTANCE);
+        final StreamingHttpResponse streamingHttpResponse = mock(StreamingHttpResponse.class);
+        when(streamingHttpResponse.hasBody()).thenReturn(false);
+        when(streamingHttpResponse.getHttpResponse()).thenThrow(new RuntimeException("TEST EXCEPTION"));
+
+        // when
+        new StreamingResponseWriter(executorGroup, sameThreadExecutor).write(ctx, new PipelinedResponses(), 0, new Callable<StreamingHttpResponse>() {
+            @Override
+            public StreamingHttpResponse call() {
+                return streamingHttpResponse;
+            }
+        }, true, false);
+
+        // then
+        assertThat(embeddedChannel.isOpen(), is(false));
+        verify(streamingHttpResponse).close();
+    }
+}
@@ -1,7 +1,10 @@
 package org.mockserver.model;
 
 import com.google.common.base.Charsets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
 import org.junit.Test;
@@ -46,6 +49,37 @@ public class NettyHttpRequestTest {
         assertEquals("onetwothree", nettyHttpRequest.content().toString(Charsets.UTF_8));
     }
 
+    @Test
+    public void shouldCopyEachContentChunkWithoutCopyingPreviousChunks() {
+        // given
+        NettyHttpRequest nettyHttpRequest = new NettyHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/somePath", true);
+        ByteBuf chunk = Unpooled.wrappedBuffer("one".getBytes());
+
+        // when
+        nettyHttpRequest.content(chunk);
+        nettyHttpRequest.content(Unpooled.wrappedBuffer("two".getBytes()));
+        chunk.setByte(0, 'O');
+
+        // then
+        assertEquals("onetwo", nettyHttpRequest.content().toString(Charsets.UTF_8));
+        assertEquals(2, ((CompositeByteBuf) nettyHttpRequest.content()).numComponents());
+    }
+
+    @Test
+    public void shouldHoldContentOfKnownLengthInOneBufferWithoutCopyingItAgain() {
+        // given
+        NettyHttpRequest nettyHttpRequest = new NettyHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/somePath", true);
+        nettyHttpRequest.headers().set(HttpHeaders.Names.CONTENT_LENGTH, 6);
+
+        // when
+        nettyHttpRequest.content(Unpooled.wrappedBuffer("one".getBytes()));
+        nettyHttpRequest.content(Unpooled.wrappedBuffer("two".getBytes()));
+
+        // then
+        assertEquals("onetwo", new String(nettyHttpRequest.contentBytes(), Charsets.UTF_8));
+        assertSame(nettyHttpRequest.contentBytes(), nettyHttpRequest.contentBytes());
+    }
+
     @Test
     public void shouldMatchRequests() {
         // when
@@ -4,6 +4,7 @@ import com.google.common.base.Charsets;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.integration.testserver.TestServer;
 import org.mockserver.proxy.http.HttpProxy;
 import org.mockserver.proxy.http.HttpProxyBuilder;
@@ -14,6 +15,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.OutputStream;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockserver.test.Assert.assertContains;
 
@@ -136,4 +140,36 @@ public class NettyDirectProxyIntegrationTest {
             }
         }
     }
+
+    @Test
+    public void shouldForwardRequestsFromMoreKeepAliveClientsThanIdleUpstreamConnectionLimit() throws Exception {
+        List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            // given
+            // - every client keeps its connection open
+            for (int i = 0; i <= SystemProperties.maxIdleUpstreamConnectionsPerHost(); i++) {
+                Socket socket = new Socket("localhost", PROXY_DIRECT_PORT);
+                socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10));
+                sockets.add(socket);
+            }
+
+            for (Socket socket : sockets) {
+                // when
+                OutputStream output = socket.getOutputStream();
+                output.write(("" +
+                        "GET /test_headers_and_body HTTP/1.1\r" + System.getProperty("line.separator") +
+                        "Host: localhost:" + SERVER_HTTP_PORT + "\r" + System.getProperty("line.separator") +
+                        "\r" + System.getProperty("line.separator")
+                ).getBytes(Charsets.UTF_8));
+                output.flush();
+
+                // then
+                assertContains(IOStreamUtils.readInputStreamToString(socket), "an_example_body");
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
 }
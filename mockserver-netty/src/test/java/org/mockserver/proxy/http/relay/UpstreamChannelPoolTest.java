@@ -0,0 +1,181 @@
+package org.mockserver.proxy.http.relay;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.socket.PortFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author jamesdbloom
+ */
+public class UpstreamChannelPoolTest {
+
+    private EventLoopGroup eventLoopGroup;
+    private Channel serverChannel;
+    private InetSocketAddress remoteSocketAddress;
+
+    @Before
+    public void startServer() throws InterruptedException {
+        eventLoopGroup = new NioEventLoopGroup(1);
+        int port = PortFactory.findFreePort();
+        serverChannel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(port).sync().channel();
+        remoteSocketAddress = new InetSocketAddress("127.0.0.1", port);
+    }
+
+    @After
+    public void stopServer() {
+        serverChannel.close();
+        eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    private Future<Channel> acquire(UpstreamChannelPool upstreamChannelPool) {
+        EventLoop eventLoop = eventLoopGroup.next();
+        return upstreamChannelPool.acquire(eventLoop, NioSocketChannel.class, remoteSocketAddress, false);
+    }
+
+    @Test
+    public void shouldReuseReleasedConnection() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(2, TimeUnit.SECONDS.toMillis(30), 5000);
+        Channel channel = acquire(upstreamChannelPool).sync().getNow();
+
+        // when
+        upstreamChannelPool.release(channel);
+
+        // then
+        assertThat(acquire(upstreamChannelPool).sync().getNow(), sameInstance(channel));
+    }
+
+    @Test
+    public void shouldConnectForMoreConcurrentAcquiresThanIdleLimit() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(2, TimeUnit.SECONDS.toMillis(30), 5000);
+        List<Channel> channels = new ArrayList<Channel>();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            channels.add(acquire(upstreamChannelPool).sync().getNow());
+        }
+
+        // then
+        assertThat(new HashSet<Channel>(channels).size(), is(5));
+        for (Channel channel : channels) {
+            assertThat(channel.isActive(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldCloseReleasedConnectionsBeyondIdleLimit() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(1, TimeUnit.SECONDS.toMillis(30), 5000);
+        Channel first = acquire(upstreamChannelPool).sync().getNow();
+        Channel second = acquire(upstreamChannelPool).sync().getNow();
+
+        // when
+        upstreamChannelPool.release(first);
+        upstreamChannelPool.release(second);
+
+        // then
+        assertThat(second.closeFuture().await(5, TimeUnit.SECONDS), is(true));
+        assertThat(first.isActive(), is(true));
+        assertThat(acquire(upstreamChannelPool).sync().getNow(), sameInstance(first));
+    }
+
+    @Test
+    public void shouldFailAcquireWhenConnectionRefused() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(1, TimeUnit.SECONDS.toMillis(30), 5000);
+        serverChannel.close().sync();
+
+        // when
+        Future<Channel> acquired = acquire(upstreamChannelPool).await();
+
+        // then
+        assertThat(acquired.isSuccess(), is(false));
+    }
+
+    @Test
+    public void shouldNotReuseClosedConnection() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(2, TimeUnit.SECONDS.toMillis(30), 5000);
+        Channel channel = acquire(upstreamChannelPool).sync().getNow();
+        upstreamChannelPool.release(channel);
+
+        // when
+        channel.close().sync();
+
+        // then
+        Channel connected = acquire(upstreamChannelPool).sync().getNow();
+        assertThat(connected, not(sameInstance(channel)));
+        assertThat(connected.isActive(), is(true));
+    }
+
+    @Test
+    public void shouldCloseIdleConnection() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(2, 50, 5000);
+        Channel channel = acquire(upstreamChannelPool).sync().getNow();
+
+        // when
+        upstreamChannelPool.release(channel);
+
+        // then
+        assertThat(channel.closeFuture().await(5, TimeUnit.SECONDS), is(true));
+        assertThat(acquire(upstreamChannelPool).sync().getNow(), not(sameInstance(channel)));
+    }
+
+    @Test
+    public void shouldForgetUpstreamOnceItsConnectionsAreClosed() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(2, TimeUnit.SECONDS.toMillis(30), 5000);
+        Channel channel = acquire(upstreamChannelPool).sync().getNow();
+        upstreamChannelPool.release(channel);
+        assertThat(upstreamChannelPool.upstreamCount(), is(1));
+
+        // when
+        channel.close().sync();
+
+        // then - the pool is told of the close by a listener that may run after the close future completes
+        for (int i = 0; i < 50 && upstreamChannelPool.upstreamCount() > 0; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertThat(upstreamChannelPool.upstreamCount(), is(0));
+    }
+
+    @Test
+    public void shouldForgetUpstreamWhenConnectionRefused() throws InterruptedException {
+        // given
+        UpstreamChannelPool upstreamChannelPool = new UpstreamChannelPool(1, TimeUnit.SECONDS.toMillis(30), 5000);
+        serverChannel.close().sync();
+
+        // when
+        acquire(upstreamChannelPool).await();
+
+        // then
+        assertThat(upstreamChannelPool.upstreamCount(), is(0));
+    }
+}
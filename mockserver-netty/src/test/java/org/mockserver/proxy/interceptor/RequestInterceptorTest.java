@@ -0,0 +1,234 @@
+package org.mockserver.proxy.interceptor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author jamesdbloom
+ */
+public class RequestInterceptorTest {
+
+    static String readInbound(EmbeddedChannel channel) {
+        StringBuilder inbound = new StringBuilder();
+        for (ByteBuf byteBuf = (ByteBuf) channel.readInbound(); byteBuf != null; byteBuf = (ByteBuf) channel.readInbound()) {
+            inbound.append(byteBuf.toString(CharsetUtil.ISO_8859_1));
+            byteBuf.release();
+        }
+        return inbound.toString();
+    }
+
+    @Test
+    public void shouldRewriteHostAndRemoveAcceptEncoding() {
+        // given
+        RequestInterceptor requestInterceptor = new RequestInterceptor(new InetSocketAddress("localhost", 1090), false);
+        EmbeddedChannel channel = new EmbeddedChannel(requestInterceptor);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "GET /somePath HTTP/1.1\r\n" +
+                "Host: proxy:80\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is("" +
+                "GET /somePath HTTP/1.1\r\n" +
+                "Connection: keep-alive\r\n" +
+                "Host: localhost:1090\r\n" +
+                "\r\n"));
+        assertThat(requestInterceptor.messagesCompleted(), is(1L));
+        assertThat(requestInterceptor.isBetweenMessages(), is(true));
+        assertThat(requestInterceptor.isKeepAlive(), is(true));
+    }
+
+    @Test
+    public void shouldNotRewriteRequestThatDoesNotNeedIt() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestInterceptor(null, false));
+        String request = "" +
+                "GET /somePath HTTP/1.1\r\n" +
+                "host:   localhost\r\n" +
+                "\r\n";
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is(request));
+    }
+
+    @Test
+    public void shouldRewriteEveryRequestOnConnection() {
+        // given
+        RequestInterceptor requestInterceptor = new RequestInterceptor(null, false);
+        EmbeddedChannel channel = new EmbeddedChannel(requestInterceptor);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "POST /one HTTP/1.1\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "Content-Length: 9\r\n" +
+                "\r\n" +
+                "some_body" +
+                "POST /two HTTP/1.1\r\n" +
+                "Accept-Encod", CharsetUtil.UTF_8));
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "ing: gzip\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "5;name=value\r\n" +
+                "chunk\r\n" +
+                "0\r\n" +
+                "Trailer: value\r\n" +
+                "\r\n" +
+                "GET /three HTTP/1.0\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is("" +
+                "POST /one HTTP/1.1\r\n" +
+                "Content-Length: 9\r\n" +
+                "\r\n" +
+                "some_body" +
+                "POST /two HTTP/1.1\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "5;name=value\r\n" +
+                "chunk\r\n" +
+                "0\r\n" +
+                "Trailer: value\r\n" +
+                "\r\n" +
+                "GET /three HTTP/1.0\r\n" +
+                "\r\n"));
+        assertThat(requestInterceptor.messagesCompleted(), is(3L));
+        assertThat(requestInterceptor.isBetweenMessages(), is(true));
+        assertThat(requestInterceptor.isKeepAlive(), is(false));
+    }
+
+    @Test
+    public void shouldPassContentOnWithoutCopying() {
+        // given
+        RequestInterceptor requestInterceptor = new RequestInterceptor(null, false);
+        EmbeddedChannel channel = new EmbeddedChannel(requestInterceptor);
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "POST /somePath HTTP/1.1\r\n" +
+                "Content-Length: 18\r\n" +
+                "\r\n" +
+                "some_", CharsetUtil.UTF_8));
+        readInbound(channel);
+        ByteBuf content = Unpooled.copiedBuffer("body_in_parts", CharsetUtil.UTF_8);
+
+        // when
+        channel.writeInbound(content);
+
+        // then
+        ByteBuf passedOn = (ByteBuf) channel.readInbound();
+        assertThat(passedOn.unwrap(), sameInstance(content));
+        assertThat(passedOn.toString(CharsetUtil.UTF_8), is("body_in_parts"));
+        passedOn.release();
+        assertThat(content.refCnt(), is(0));
+        assertThat(requestInterceptor.isBetweenMessages(), is(true));
+    }
+
+    @Test
+    public void shouldWaitForRestOfMessage() {
+        // given
+        RequestInterceptor requestInterceptor = new RequestInterceptor(null, false);
+        EmbeddedChannel channel = new EmbeddedChannel(requestInterceptor);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "POST /somePath HTTP/1.1\r\n" +
+                "Content-Length: 9\r\n" +
+                "\r\n" +
+                "some_", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(requestInterceptor.isBetweenMessages(), is(false));
+        assertThat(requestInterceptor.messagesCompleted(), is(0L));
+    }
+
+    @Test
+    public void shouldAppendFoldedHeaderToLastValueOnly() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestInterceptor(null, false));
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "GET /somePath HTTP/1.1\r\n" +
+                "X-Repeated: one\r\n" +
+                "X-Repeated: two\r\n" +
+                "  continued\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is("" +
+                "GET /somePath HTTP/1.1\r\n" +
+                "X-Repeated: one\r\n" +
+                "X-Repeated: two continued\r\n" +
+                "\r\n"));
+    }
+
+    @Test
+    public void shouldPassOnStreamUntouchedWhenChunkSizeTooLarge() {
+        // given
+        RequestInterceptor requestInterceptor = new RequestInterceptor(null, false);
+        EmbeddedChannel channel = new EmbeddedChannel(requestInterceptor);
+        String rest = "" +
+                "chunk\r\n" +
+                "0\r\n" +
+                "\r\n" +
+                "GET /next HTTP/1.1\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "\r\n";
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "POST /somePath HTTP/1.1\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "10000000000000000\r\n" +
+                rest, CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is("" +
+                "POST /somePath HTTP/1.1\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "10000000000000000\r\n" +
+                rest));
+        assertThat(requestInterceptor.isKeepAlive(), is(false));
+        assertThat(requestInterceptor.messagesCompleted(), is(0L));
+    }
+
+    @Test
+    public void shouldOnlyRecordMethodsWhenAsked() {
+        // given
+        RequestInterceptor recordingRequestInterceptor = new RequestInterceptor(null, true);
+        RequestInterceptor requestInterceptor = new RequestInterceptor(null, false);
+        String request = "" +
+                "HEAD /somePath HTTP/1.1\r\n" +
+                "\r\n";
+
+        // when
+        new EmbeddedChannel(recordingRequestInterceptor).writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.UTF_8));
+        new EmbeddedChannel(requestInterceptor).writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.UTF_8));
+
+        // then
+        assertThat(recordingRequestInterceptor.nextUnansweredMethod(), is("HEAD"));
+        assertThat(requestInterceptor.nextUnansweredMethod(), is(nullValue()));
+    }
+}
@@ -0,0 +1,103 @@
+package org.mockserver.proxy.interceptor;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockserver.proxy.interceptor.RequestInterceptorTest.readInbound;
+
+/**
+ * @author jamesdbloom
+ */
+public class ResponseInterceptorTest {
+
+    @Test
+    public void shouldPassOnResponsesUnchanged() {
+        // given
+        ResponseInterceptor responseInterceptor = new ResponseInterceptor(null);
+        EmbeddedChannel channel = new EmbeddedChannel(responseInterceptor);
+        String responses = "" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "Content-Length: 9\r\n" +
+                "\r\n" +
+                "some_body" +
+                "HTTP/1.1 204 No Content\r\n" +
+                "\r\n";
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer(responses, CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is(responses));
+        assertThat(responseInterceptor.messagesCompleted(), is(2L));
+        assertThat(responseInterceptor.isBetweenMessages(), is(true));
+        assertThat(responseInterceptor.isKeepAlive(), is(true));
+    }
+
+    @Test
+    public void shouldNotExpectContentInResponseToHeadRequest() {
+        // given
+        RequestInterceptor requestInterceptor = new RequestInterceptor(null, true);
+        new EmbeddedChannel(requestInterceptor).writeInbound(Unpooled.copiedBuffer("" +
+                "HEAD /somePath HTTP/1.1\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+        ResponseInterceptor responseInterceptor = new ResponseInterceptor(requestInterceptor);
+        EmbeddedChannel channel = new EmbeddedChannel(responseInterceptor);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 9\r\n" +
+                "\r\n", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(responseInterceptor.messagesCompleted(), is(1L));
+        assertThat(responseInterceptor.isBetweenMessages(), is(true));
+    }
+
+    @Test
+    public void shouldNotCountInterimResponses() {
+        // given
+        ResponseInterceptor responseInterceptor = new ResponseInterceptor(null);
+        EmbeddedChannel channel = new EmbeddedChannel(responseInterceptor);
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer("" +
+                "HTTP/1.1 100 Continue\r\n" +
+                "\r\n" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 2\r\n" +
+                "\r\n" +
+                "ok", CharsetUtil.UTF_8));
+
+        // then
+        assertThat(responseInterceptor.messagesCompleted(), is(1L));
+        assertThat(responseInterceptor.isBetweenMessages(), is(true));
+    }
+
+    @Test
+    public void shouldPassOnResponseWithoutLengthUntilClosed() {
+        // given
+        ResponseInterceptor responseInterceptor = new ResponseInterceptor(null);
+        EmbeddedChannel channel = new EmbeddedChannel(responseInterceptor);
+        String response = "" +
+                "HTTP/1.1 200 OK\r\n" +
+                "\r\n" +
+                "some_body\r\n" +
+                "\r\n" +
+                "HTTP/1.1 200 OK\r\n";
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer(response, CharsetUtil.UTF_8));
+
+        // then
+        assertThat(readInbound(channel), is(response));
+        assertThat(responseInterceptor.messagesCompleted(), is(0L));
+        assertThat(responseInterceptor.isBetweenMessages(), is(false));
+        assertThat(responseInterceptor.isKeepAlive(), is(false));
+    }
+}
@@ -0,0 +1,139 @@
+package org.mockserver.socket;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.SocketChannelConfig;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.junit.After;
+import org.junit.Test;
+import org.mockserver.configuration.SystemProperties;
+
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author jamesdbloom
+ */
+public class NettyTransportTest {
+
+    @After
+    public void clearSystemProperties() {
+        System.clearProperty("mockserver.nativeTransport");
+        System.clearProperty("mockserver.tcpNoDelay");
+        System.clearProperty("mockserver.writeBufferHighWaterMark");
+        System.clearProperty("mockserver.writeBufferLowWaterMark");
+    }
+
+    @Test
+    public void shouldUseNioTransportByDefault() {
+        // when
+        NettyTransport transport = NettyTransport.transport();
+
+        // then
+        assertFalse(transport.isNative());
+        assertEquals(NioServerSocketChannel.class, transport.serverChannelClass());
+        EventLoopGroup eventLoopGroup = transport.eventLoopGroup(1);
+        try {
+            assertTrue(eventLoopGroup instanceof NioEventLoopGroup);
+        } finally {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void shouldOnlyUseNativeTransportWhenAvailable() {
+        // given
+        SystemProperties.nativeTransport(true);
+
+        // when
+        NettyTransport transport = NettyTransport.transport();
+
+        // then
+        assertEquals(NettyTransport.isNativeTransportAvailable(), transport.isNative());
+        assertEquals(NettyTransport.isNativeTransportAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class, transport.serverChannelClass());
+    }
+
+    @Test
+    public void shouldConfigureAcceptedChannels() throws Exception {
+        // given
+        SystemProperties.tcpNoDelay(true);
+        SystemProperties.writeBufferHighWaterMark(16 * 1024);
+        SystemProperties.writeBufferLowWaterMark(8 * 1024);
+
+        // when
+        List<Object> config = acceptConnection(new NettyTransport(false, 1));
+
+        // then
+        assertEquals(Arrays.<Object>asList(true, 16 * 1024, 8 * 1024), config);
+    }
+
+    @Test
+    public void shouldBindEachAcceptorWithNativeTransport() throws Exception {
+        // given
+        assumeTrue(NettyTransport.isNativeTransportAvailable());
+
+        // when
+        List<Object> config = acceptConnection(new NettyTransport(true, 2));
+
+        // then
+        assertEquals(Arrays.<Object>asList(true, 64 * 1024, 32 * 1024), config);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectLowWaterMarkGreaterThanHighWaterMark() {
+        // given
+        SystemProperties.writeBufferHighWaterMark(8 * 1024);
+        SystemProperties.writeBufferLowWaterMark(16 * 1024);
+
+        // when
+        new NettyTransport(false, 1).configure(new ServerBootstrap());
+    }
+
+    /**
+     * @return the tcp no delay, write buffer high water mark and write buffer low water mark of the accepted channel
+     */
+    private List<Object> acceptConnection(NettyTransport transport) throws Exception {
+        final BlockingQueue<List<Object>> acceptedChannelConfigs = new ArrayBlockingQueue<List<Object>>(1);
+        EventLoopGroup bossGroup = transport.acceptorEventLoopGroup();
+        EventLoopGroup workerGroup = transport.eventLoopGroup(1);
+        try {
+            int port = PortFactory.findFreePort();
+            ChannelFuture channelFuture = transport.bind(
+                    transport.configure(new ServerBootstrap())
+                            .group(bossGroup, workerGroup)
+                            .childHandler(new ChannelInitializer<SocketChannel>() {
+                                @Override
+                                protected void initChannel(SocketChannel ch) throws Exception {
+                                    SocketChannelConfig config = ch.config();
+                                    acceptedChannelConfigs.add(Arrays.<Object>asList(config.isTcpNoDelay(), config.getWriteBufferHighWaterMark(), config.getWriteBufferLowWaterMark()));
+                                }
+                            }),
+                    port
+            );
+            assertTrue(channelFuture.isSuccess());
+            Socket socket = new Socket("localhost", port);
+            try {
+                List<Object> config = acceptedChannelConfigs.poll(5, TimeUnit.SECONDS);
+                assertNotNull(config);
+                return config;
+            } finally {
+                socket.close();
+            }
+        } finally {
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+        }
+    }
+}
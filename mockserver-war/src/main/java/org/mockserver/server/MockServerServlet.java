@@ -100,7 +100,7 @@ public class MockServerServlet extends HttpServlet {
                     // todo implement callback logic in here
                 case RESPONSE:
                 default:
-                    mapResponse(httpResponseActionHandler.handle((HttpResponse) action, httpRequest), httpServletResponse);
+                    mapResponse(httpResponseActionHandler.handle(((HttpResponse) action).applyDelay(), httpRequest), httpServletResponse);
                     break;
             }
         } else {